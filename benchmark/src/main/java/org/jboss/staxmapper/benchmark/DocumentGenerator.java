@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Generates synthetic WildFly-style configuration documents, so that the benchmark corpus can be rebuilt on demand
+ * rather than checked in.
+ * <p>
+ * A generated document consists of a root {@code <server>} element containing a {@code <profile>} with the configured
+ * number of {@code <subsystem>} elements.  Each subsystem lives in one of a configurable number of namespaces, and is
+ * read via {@link org.jboss.staxmapper.XMLExtendedStreamReader#handleAny(Object)}.  Each subsystem contains a binary
+ * tree of nested elements of the configured depth, each carrying the configured number of attributes.
+ */
+public final class DocumentGenerator {
+    static final String ROOT_NAMESPACE = "urn:benchmark:domain:1.0";
+    static final String SUBSYSTEM = "subsystem";
+
+    private final int subsystems;
+    private final int depth;
+    private final int attributes;
+    private final int namespaces;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param subsystems the number of {@code <subsystem>} elements
+     * @param depth the nesting depth of the elements within each subsystem
+     * @param attributes the number of attributes on each nested element
+     * @param namespaces the number of distinct subsystem namespaces
+     */
+    public DocumentGenerator(final int subsystems, final int depth, final int attributes, final int namespaces) {
+        if (subsystems < 0 || depth < 0 || attributes < 0 || namespaces < 1) {
+            throw new IllegalArgumentException("Invalid document shape");
+        }
+        this.subsystems = subsystems;
+        this.depth = depth;
+        this.attributes = attributes;
+        this.namespaces = namespaces;
+    }
+
+    /**
+     * Get the namespace URI of the given subsystem namespace index.
+     *
+     * @param index the namespace index
+     * @return the namespace URI
+     */
+    static String subsystemNamespace(final int index) {
+        return "urn:benchmark:subsystem-" + index + ":1.0";
+    }
+
+    /**
+     * Get the number of distinct subsystem namespaces used by this generator.
+     *
+     * @return the number of namespaces
+     */
+    public int getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * Generate the document.
+     *
+     * @return the document text
+     */
+    public String generate() {
+        final StringBuilder b = new StringBuilder(4096);
+        b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        b.append("<server xmlns=\"").append(ROOT_NAMESPACE).append("\">\n");
+        b.append("    <profile>\n");
+        for (int i = 0; i < subsystems; i++) {
+            b.append("        <").append(SUBSYSTEM).append(" xmlns=\"").append(subsystemNamespace(i % namespaces)).append("\" name=\"subsystem-").append(i).append("\">\n");
+            appendElement(b, 0, 3);
+            appendElement(b, 1, 3);
+            b.append("        </").append(SUBSYSTEM).append(">\n");
+        }
+        b.append("    </profile>\n");
+        b.append("</server>\n");
+        return b.toString();
+    }
+
+    private void appendElement(final StringBuilder b, final int ordinal, final int level) {
+        indent(b, level);
+        if (level - 2 >= depth) {
+            b.append("<property name=\"property-").append(ordinal).append("\">value &amp; text ").append(ordinal).append("</property>\n");
+            return;
+        }
+        b.append("<element");
+        for (int i = 0; i < attributes; i++) {
+            b.append(" attribute-").append(i).append("=\"value-").append(level).append('-').append(i).append('"');
+        }
+        b.append(">\n");
+        appendElement(b, 0, level + 1);
+        appendElement(b, 1, level + 1);
+        indent(b, level);
+        b.append("</element>\n");
+    }
+
+    private static void indent(final StringBuilder b, final int level) {
+        for (int i = 0; i < level; i++) {
+            b.append("    ");
+        }
+    }
+
+    /**
+     * Write the document to a file.
+     *
+     * @param path the target file
+     * @throws IOException if the file could not be written
+     */
+    public void writeTo(final Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(generate());
+        }
+    }
+
+    /**
+     * Rebuild a benchmark corpus.
+     * Usage: {@code DocumentGenerator <directory> [subsystems [depth [attributes [namespaces]]]]}.
+     *
+     * @param args the command line arguments
+     * @throws IOException if a file could not be written
+     */
+    public static void main(final String[] args) throws IOException {
+        final Path directory = Paths.get(args.length > 0 ? args[0] : "corpus");
+        final int subsystems = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        final int attributes = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        final int namespaces = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        Files.createDirectories(directory);
+        final Path path = directory.resolve(String.format("config-%d-%d-%d-%d.xml", subsystems, depth, attributes, namespaces));
+        new DocumentGenerator(subsystems, depth, attributes, namespaces).writeTo(path);
+        System.out.println("Generated " + path);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper.benchmark;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.staxmapper.XMLElementReader;
+import org.jboss.staxmapper.XMLExtendedStreamReader;
+
+/**
+ * Reads generated documents into a list of {@link Node}s.  The root element reader delegates each
+ * {@code <subsystem>} to {@link XMLExtendedStreamReader#handleAny(Object)}, mirroring how WildFly dispatches
+ * its subsystem parsers.
+ */
+final class ModelReader implements XMLElementReader<List<Node>> {
+    private final boolean root;
+
+    ModelReader(final boolean root) {
+        this.root = root;
+    }
+
+    @Override
+    public void readElement(final XMLExtendedStreamReader reader, final List<Node> value) throws XMLStreamException {
+        final Node node = readNode(reader);
+        value.add(node);
+    }
+
+    private Node readNode(final XMLExtendedStreamReader reader) throws XMLStreamException {
+        final Node node = new Node(reader.getName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            node.attributes.add(reader.getAttributeLocalName(i));
+            node.attributes.add(reader.getAttributeValue(i));
+        }
+        while (reader.hasNext()) {
+            switch (reader.nextTag()) {
+                case START_ELEMENT: {
+                    if (root && DocumentGenerator.SUBSYSTEM.equals(reader.getLocalName())) {
+                        reader.handleAny(node.children);
+                    } else if ("property".equals(reader.getLocalName())) {
+                        final Node property = new Node(reader.getName());
+                        property.attributes.add(reader.getAttributeLocalName(0));
+                        property.attributes.add(reader.getAttributeValue(0));
+                        property.text = reader.getElementText();
+                        node.children.add(property);
+                    } else {
+                        node.children.add(readNode(reader));
+                    }
+                    break;
+                }
+                case END_ELEMENT: {
+                    return node;
+                }
+            }
+        }
+        return node;
+    }
+}
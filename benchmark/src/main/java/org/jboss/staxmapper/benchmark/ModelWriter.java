@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper.benchmark;
+
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+
+/**
+ * Writes a list of {@link Node}s produced by {@link ModelReader} back out as a document.
+ */
+final class ModelWriter implements XMLElementWriter<List<Node>> {
+
+    @Override
+    public void writeContent(final XMLExtendedStreamWriter writer, final List<Node> value) throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        for (Node node : value) {
+            writeNode(writer, node, null);
+        }
+        writer.writeEndDocument();
+    }
+
+    private static void writeNode(final XMLExtendedStreamWriter writer, final Node node, final String parentNamespace) throws XMLStreamException {
+        final String namespace = node.name.getNamespaceURI();
+        writer.writeStartElement(node.name.getLocalPart());
+        if (! namespace.equals(parentNamespace)) {
+            writer.writeDefaultNamespace(namespace);
+        }
+        final List<String> attributes = node.attributes;
+        for (int i = 0; i < attributes.size(); i += 2) {
+            writer.writeAttribute(attributes.get(i), attributes.get(i + 1));
+        }
+        if (node.text != null) {
+            writer.writeCharacters(node.text);
+        }
+        for (Node child : node.children) {
+            writeNode(writer, child, namespace);
+        }
+        writer.writeEndElement();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.staxmapper.XMLMapper;
+import org.jboss.staxmapper.XMLMapperSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end benchmarks of {@link XMLMapper#parseDocument} and {@link XMLMapper#deparseDocument} over documents
+ * produced by {@link DocumentGenerator}.  A single {@link XMLMapper} is shared by all benchmark threads, as it is in
+ * WildFly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLMapperBenchmark {
+
+    /** The number of {@code <subsystem>} elements. */
+    @Param({ "10", "100" })
+    public int subsystems;
+
+    /** The nesting depth of each subsystem. */
+    @Param({ "2", "6" })
+    public int depth;
+
+    /** The number of attributes per element. */
+    @Param({ "4" })
+    public int attributes;
+
+    /** The number of distinct subsystem namespaces. */
+    @Param({ "1", "10" })
+    public int namespaces;
+
+    private XMLMapper mapper;
+    private XMLMapperSession session;
+    private XMLInputFactory inputFactory;
+    private XMLOutputFactory outputFactory;
+    private byte[] document;
+    private List<Node> model;
+    private final ModelWriter writer = new ModelWriter();
+
+    @Setup
+    public void setup() throws XMLStreamException {
+        mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(DocumentGenerator.ROOT_NAMESPACE, "server"), new ModelReader(true));
+        for (int i = 0; i < namespaces; i++) {
+            mapper.registerRootElement(new QName(DocumentGenerator.subsystemNamespace(i), DocumentGenerator.SUBSYSTEM), () -> new ModelReader(false));
+        }
+        inputFactory = XMLInputFactory.newInstance();
+        outputFactory = XMLOutputFactory.newInstance();
+        document = new DocumentGenerator(subsystems, depth, attributes, namespaces).generate().getBytes(StandardCharsets.UTF_8);
+        model = parse();
+        session = mapper.openSession();
+    }
+
+    @Benchmark
+    public List<Node> parse() throws XMLStreamException {
+        final List<Node> value = new ArrayList<>();
+        mapper.parseDocument(value, inputFactory.createXMLStreamReader(new ByteArrayInputStream(document)));
+        return value;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Node> parseShared() throws XMLStreamException {
+        return parse();
+    }
+
+    @Benchmark
+    public List<Node> parseSession() throws XMLStreamException {
+        final List<Node> value = new ArrayList<>();
+        session.parseDocument(value, document);
+        return value;
+    }
+
+    @Benchmark
+    public byte[] deparse() throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(document.length);
+        mapper.deparseDocument(writer, model, outputFactory.createXMLStreamWriter(out, "UTF-8"));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] deparseShared() throws XMLStreamException {
+        return deparse();
+    }
+
+    @Benchmark
+    public byte[] deparseUTF8() throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(document.length);
+        mapper.deparseDocument(writer, model, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] deparseSession() throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(document.length);
+        session.deparseDocument(writer, model, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A hash index of the attributes of a start element by local name, so that looking up many attributes of a wide
+ * element by name does not scan all of them each time.  The index is built on the first lookup by name and is valid
+ * until the reader advances.
+ */
+final class AttributeIndex {
+    // Elements with fewer attributes are scanned instead
+    static final int THRESHOLD = 8;
+
+    // The attribute index + 1 in each slot, or 0 if the slot is empty
+    private int[] slots = new int[32];
+    private int mask;
+    // The event count of the reader when the index was built, or -1 if it is invalid
+    private long events = -1;
+
+    boolean isValid(final long events) {
+        return this.events == events;
+    }
+
+    void invalidate() {
+        events = -1;
+    }
+
+    /**
+     * Index the attributes of the start element at the current position of the given reader.
+     *
+     * @param reader the reader
+     * @param count the attribute count of the element
+     * @param events the event count of the reader, which identifies the element
+     */
+    void build(final XMLStreamReader reader, final int count, final long events) {
+        // At most half full
+        final int capacity = Integer.highestOneBit(count - 1) << 2;
+        if (slots.length < capacity) {
+            slots = new int[capacity];
+        } else {
+            Arrays.fill(slots, 0, capacity, 0);
+        }
+        final int[] slots = this.slots;
+        final int mask = this.mask = capacity - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = hash(reader.getAttributeLocalName(i)) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+        this.events = events;
+    }
+
+    /**
+     * Find an attribute of the indexed element.
+     *
+     * @param reader the reader the index was built from
+     * @param namespaceURI the namespace of the attribute, or {@code null} to match any namespace
+     * @param localName the local name of the attribute
+     * @return the index of the attribute, or -1 if there is none
+     */
+    int find(final XMLStreamReader reader, final String namespaceURI, final String localName) {
+        final int[] slots = this.slots;
+        int slot = hash(localName) & mask;
+        for (;;) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            final int index = entry - 1;
+            if (localName.equals(reader.getAttributeLocalName(index)) && (namespaceURI == null || namespaceURI.equals(nonNull(reader.getAttributeNamespace(index))))) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hash(final String string) {
+        final int hash = string.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String nonNull(final String string) {
+        return string == null ? "" : string;
+    }
+}
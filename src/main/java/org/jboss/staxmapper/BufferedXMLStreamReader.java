@@ -0,0 +1,591 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static org.jboss.staxmapper.XMLEventBuffer.ATTRIBUTE_SIZE;
+import static org.jboss.staxmapper.XMLEventBuffer.END_SIZE;
+import static org.jboss.staxmapper.XMLEventBuffer.END_START;
+import static org.jboss.staxmapper.XMLEventBuffer.NAMESPACE_SIZE;
+import static org.jboss.staxmapper.XMLEventBuffer.START_ATTRIBUTE_COUNT;
+import static org.jboss.staxmapper.XMLEventBuffer.START_END;
+import static org.jboss.staxmapper.XMLEventBuffer.START_EVENTS;
+import static org.jboss.staxmapper.XMLEventBuffer.START_LOCAL_NAME;
+import static org.jboss.staxmapper.XMLEventBuffer.START_NAMESPACE;
+import static org.jboss.staxmapper.XMLEventBuffer.START_NAMESPACE_COUNT;
+import static org.jboss.staxmapper.XMLEventBuffer.START_PREFIX;
+import static org.jboss.staxmapper.XMLEventBuffer.START_SIZE;
+import static org.jboss.staxmapper.XMLEventBuffer.TEXT_LENGTH;
+import static org.jboss.staxmapper.XMLEventBuffer.TEXT_NAME;
+import static org.jboss.staxmapper.XMLEventBuffer.TEXT_START;
+import static org.jboss.staxmapper.XMLEventBuffer.TYPE;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * An XML stream reader which replays an {@link XMLEventBuffer}.  The buffer is independent of its source reader and
+ * may be replayed by any number of these readers, on any thread.  The original line and column of each event are
+ * retained.
+ */
+final class BufferedXMLStreamReader implements XMLStreamReader {
+    private final XMLEventBuffer buffer;
+    private final ScopedNamespaceContext namespaceContext = new ScopedNamespaceContext();
+    // offset of the current event in the buffer
+    private int offset;
+
+    BufferedXMLStreamReader(final XMLEventBuffer buffer) {
+        this.buffer = buffer;
+        namespaceContext.push(0);
+    }
+
+    /**
+     * Record the element subtree at the current position of the given reader.  The reader must be positioned on a
+     * {@code START_ELEMENT}; on return it is positioned on the corresponding {@code END_ELEMENT}.
+     *
+     * @param reader the source reader
+     * @return a reader positioned on the recorded {@code START_ELEMENT}
+     * @throws XMLStreamException if the source reader fails
+     */
+    static BufferedXMLStreamReader record(final XMLStreamReader reader) throws XMLStreamException {
+        return record(reader, null);
+    }
+
+    /**
+     * Record the element subtree at the current position of the given reader, feeding the content of each event
+     * to a digest as it is recorded.
+     *
+     * @param reader the source reader
+     * @param digest the digest to update, or {@code null} for none
+     * @return a reader positioned on the recorded {@code START_ELEMENT}
+     * @throws XMLStreamException if the source reader fails
+     * @see XMLEventBuffer#record(XMLStreamReader, MessageDigest, boolean)
+     */
+    static BufferedXMLStreamReader record(final XMLStreamReader reader, final MessageDigest digest) throws XMLStreamException {
+        return new BufferedXMLStreamReader(XMLEventBuffer.record(reader, digest, false));
+    }
+
+    /**
+     * Create another reader over the same buffer, positioned on the recorded {@code START_ELEMENT}.
+     *
+     * @return the new reader
+     */
+    BufferedXMLStreamReader replay() {
+        return new BufferedXMLStreamReader(buffer);
+    }
+
+    private boolean atEnd() {
+        return offset >= buffer.size();
+    }
+
+    private int type() {
+        return atEnd() ? END_DOCUMENT : buffer.get(offset + TYPE);
+    }
+
+    /**
+     * Get the offset of the start element of the current element event.
+     */
+    private int element() {
+        final int type = type();
+        if (type == START_ELEMENT) {
+            return offset;
+        } else if (type == END_ELEMENT) {
+            return buffer.get(offset + END_START);
+        }
+        throw new IllegalStateException("Current event is not an element");
+    }
+
+    private int startElement() {
+        if (type() != START_ELEMENT) {
+            throw new IllegalStateException("Current event is not a start element");
+        }
+        return offset;
+    }
+
+    private int attribute(final int index) {
+        final int start = startElement();
+        if (index < 0 || index >= buffer.get(start + START_ATTRIBUTE_COUNT)) {
+            throw new IndexOutOfBoundsException("Attribute index " + index);
+        }
+        return start + START_SIZE + index * ATTRIBUTE_SIZE;
+    }
+
+    private int namespace(final int index) {
+        final int start = element();
+        if (index < 0 || index >= buffer.get(start + START_NAMESPACE_COUNT)) {
+            throw new IndexOutOfBoundsException("Namespace index " + index);
+        }
+        return start + START_SIZE + buffer.get(start + START_ATTRIBUTE_COUNT) * ATTRIBUTE_SIZE + index * NAMESPACE_SIZE;
+    }
+
+    public Object getProperty(final String name) throws IllegalArgumentException {
+        if (name == null) {
+            throw new IllegalArgumentException("Property name is null");
+        }
+        return null;
+    }
+
+    public int next() throws XMLStreamException {
+        if (atEnd()) {
+            throw new NoSuchElementException();
+        }
+        if (buffer.get(offset + TYPE) == END_ELEMENT) {
+            namespaceContext.pop();
+        }
+        offset += buffer.eventSize(offset);
+        if (atEnd()) {
+            return END_DOCUMENT;
+        }
+        final int type = buffer.get(offset + TYPE);
+        if (type == START_ELEMENT) {
+            namespaceContext.push(offset);
+        }
+        return type;
+    }
+
+    /**
+     * Skip to the {@code END_ELEMENT} of the innermost element open at the current position, jumping over nested
+     * elements without visiting their events.  This is equivalent to calling {@link #next()} until that
+     * {@code END_ELEMENT} is reached.
+     *
+     * @return the number of events advanced over
+     */
+    int skipElement() {
+        if (atEnd()) {
+            throw new NoSuchElementException();
+        }
+        final XMLEventBuffer buffer = this.buffer;
+        int offset = this.offset;
+        int count;
+        final int type = buffer.get(offset + TYPE);
+        if (type == START_ELEMENT) {
+            count = buffer.get(offset + START_EVENTS);
+            offset = buffer.get(offset + START_END);
+        } else {
+            if (type == END_ELEMENT) {
+                namespaceContext.pop();
+            }
+            count = 0;
+            for (;;) {
+                offset += buffer.eventSize(offset);
+                count++;
+                if (offset >= buffer.size()) {
+                    throw new NoSuchElementException();
+                }
+                final int next = buffer.get(offset + TYPE);
+                if (next == START_ELEMENT) {
+                    count += buffer.get(offset + START_EVENTS);
+                    offset = buffer.get(offset + START_END);
+                } else if (next == END_ELEMENT) {
+                    break;
+                }
+            }
+        }
+        this.offset = offset;
+        return count;
+    }
+
+    public void require(final int type, final String namespaceURI, final String localName) throws XMLStreamException {
+        final int eventType = getEventType();
+        if (type != eventType) {
+            throw new XMLStreamException("Expected event type " + type + ", got " + eventType, getLocation());
+        }
+        if (namespaceURI != null && ! namespaceURI.equals(getNamespaceURI())) {
+            throw new XMLStreamException("Expected namespace " + namespaceURI + ", got " + getNamespaceURI(), getLocation());
+        }
+        if (localName != null && ! localName.equals(getLocalName())) {
+            throw new XMLStreamException("Expected local name " + localName + ", got " + getLocalName(), getLocation());
+        }
+    }
+
+    public String getElementText() throws XMLStreamException {
+        require(START_ELEMENT, null, null);
+        final StringBuilder b = new StringBuilder();
+        for (;;) {
+            switch (next()) {
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case ENTITY_REFERENCE: {
+                    b.append(getText());
+                    break;
+                }
+                case PROCESSING_INSTRUCTION:
+                case COMMENT: {
+                    break;
+                }
+                case END_ELEMENT: {
+                    return b.toString();
+                }
+                default: {
+                    throw new XMLStreamException("Unexpected event in element text", getLocation());
+                }
+            }
+        }
+    }
+
+    public int nextTag() throws XMLStreamException {
+        for (;;) {
+            final int type = next();
+            switch (type) {
+                case START_ELEMENT:
+                case END_ELEMENT: {
+                    return type;
+                }
+                case CHARACTERS:
+                case CDATA:
+                case SPACE: {
+                    if (! isWhiteSpace()) {
+                        throw new XMLStreamException("Unexpected non-whitespace text", getLocation());
+                    }
+                    break;
+                }
+                case PROCESSING_INSTRUCTION:
+                case COMMENT: {
+                    break;
+                }
+                default: {
+                    throw new XMLStreamException("Expected start or end tag", getLocation());
+                }
+            }
+        }
+    }
+
+    public boolean hasNext() throws XMLStreamException {
+        return ! atEnd();
+    }
+
+    public void close() throws XMLStreamException {
+        // nothing to release
+    }
+
+    public String getNamespaceURI(final String prefix) {
+        return namespaceContext.getNamespaceURI(prefix);
+    }
+
+    public boolean isStartElement() {
+        return getEventType() == START_ELEMENT;
+    }
+
+    public boolean isEndElement() {
+        return getEventType() == END_ELEMENT;
+    }
+
+    public boolean isCharacters() {
+        return getEventType() == CHARACTERS;
+    }
+
+    public boolean isWhiteSpace() {
+        final int type = type();
+        if (type == SPACE) {
+            return true;
+        }
+        if (type != CHARACTERS && type != CDATA) {
+            return false;
+        }
+        final int start = buffer.get(offset + TEXT_START);
+        final int end = start + buffer.get(offset + TEXT_LENGTH);
+        for (int i = start; i < end; i++) {
+            final char c = buffer.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getAttributeValue(final String namespaceURI, final String localName) {
+        final int start = startElement();
+        final int count = buffer.get(start + START_ATTRIBUTE_COUNT);
+        for (int i = 0, base = start + START_SIZE; i < count; i++, base += ATTRIBUTE_SIZE) {
+            if (buffer.symbol(buffer.get(base + 1)).equals(localName) && (namespaceURI == null || namespaceURI.equals(buffer.symbol(buffer.get(base))))) {
+                return buffer.text(buffer.get(base + 4), buffer.get(base + 5));
+            }
+        }
+        return null;
+    }
+
+    public int getAttributeCount() {
+        return buffer.get(startElement() + START_ATTRIBUTE_COUNT);
+    }
+
+    public QName getAttributeName(final int index) {
+        final int base = attribute(index);
+        return new QName(buffer.symbol(buffer.get(base)), buffer.symbol(buffer.get(base + 1)), buffer.symbol(buffer.get(base + 2)));
+    }
+
+    public String getAttributeNamespace(final int index) {
+        final String namespaceURI = buffer.symbol(buffer.get(attribute(index)));
+        return namespaceURI.isEmpty() ? null : namespaceURI;
+    }
+
+    public String getAttributeLocalName(final int index) {
+        return buffer.symbol(buffer.get(attribute(index) + 1));
+    }
+
+    public String getAttributePrefix(final int index) {
+        return buffer.symbol(buffer.get(attribute(index) + 2));
+    }
+
+    public String getAttributeType(final int index) {
+        return buffer.symbol(buffer.get(attribute(index) + 3));
+    }
+
+    public String getAttributeValue(final int index) {
+        final int base = attribute(index);
+        return buffer.text(buffer.get(base + 4), buffer.get(base + 5));
+    }
+
+    /**
+     * Determine whether the value of an attribute equals the given characters, without creating a string.
+     */
+    boolean attributeValueEquals(final int index, final CharSequence value) {
+        final int base = attribute(index);
+        return buffer.textEquals(buffer.get(base + 4), buffer.get(base + 5), value);
+    }
+
+    public boolean isAttributeSpecified(final int index) {
+        return buffer.get(attribute(index) + 6) != 0;
+    }
+
+    public int getNamespaceCount() {
+        return buffer.get(element() + START_NAMESPACE_COUNT);
+    }
+
+    public String getNamespacePrefix(final int index) {
+        final String prefix = buffer.symbol(buffer.get(namespace(index)));
+        return prefix.isEmpty() ? null : prefix;
+    }
+
+    public String getNamespaceURI(final int index) {
+        return buffer.symbol(buffer.get(namespace(index) + 1));
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return namespaceContext;
+    }
+
+    public int getEventType() {
+        return type();
+    }
+
+    private boolean hasTextRange() {
+        final int type = type();
+        return type != END_DOCUMENT && type != START_ELEMENT && type != END_ELEMENT && buffer.get(offset + TEXT_LENGTH) >= 0;
+    }
+
+    public String getText() {
+        if (! hasTextRange()) {
+            throw new IllegalStateException("Current event has no text");
+        }
+        return buffer.text(buffer.get(offset + TEXT_START), buffer.get(offset + TEXT_LENGTH));
+    }
+
+    public char[] getTextCharacters() {
+        final char[] array = buffer.textArray();
+        if (array != null) {
+            if (! hasTextRange()) {
+                throw new IllegalStateException("Current event has no text");
+            }
+            return array;
+        }
+        return getText().toCharArray();
+    }
+
+    public int getTextCharacters(final int sourceStart, final char[] target, final int targetStart, final int length) throws XMLStreamException {
+        if (! hasTextRange()) {
+            throw new IllegalStateException("Current event has no text");
+        }
+        final int count = Math.max(0, Math.min(length, buffer.get(offset + TEXT_LENGTH) - sourceStart));
+        buffer.getChars(buffer.get(offset + TEXT_START) + sourceStart, count, target, targetStart);
+        return count;
+    }
+
+    public int getTextStart() {
+        // Text held on the heap is returned in place by getTextCharacters()
+        return buffer.textArray() != null && hasTextRange() ? buffer.get(offset + TEXT_START) : 0;
+    }
+
+    public int getTextLength() {
+        if (! hasTextRange()) {
+            throw new IllegalStateException("Current event has no text");
+        }
+        return buffer.get(offset + TEXT_LENGTH);
+    }
+
+    public String getEncoding() {
+        return null;
+    }
+
+    public boolean hasText() {
+        return hasTextRange() && type() != PROCESSING_INSTRUCTION;
+    }
+
+    public Location getLocation() {
+        if (atEnd()) {
+            // The location of the final END_ELEMENT
+            return buffer.location(buffer.size() - END_SIZE);
+        }
+        return buffer.location(offset);
+    }
+
+    public QName getName() {
+        final int start = element();
+        return new QName(buffer.symbol(buffer.get(start + START_NAMESPACE)), buffer.symbol(buffer.get(start + START_LOCAL_NAME)), buffer.symbol(buffer.get(start + START_PREFIX)));
+    }
+
+    public String getLocalName() {
+        final int type = type();
+        if (type == START_ELEMENT || type == END_ELEMENT) {
+            return buffer.symbol(buffer.get(element() + START_LOCAL_NAME));
+        } else if (type == ENTITY_REFERENCE) {
+            return buffer.symbol(buffer.get(offset + TEXT_NAME));
+        }
+        throw new IllegalStateException("Current event has no local name");
+    }
+
+    public boolean hasName() {
+        final int type = getEventType();
+        return type == START_ELEMENT || type == END_ELEMENT;
+    }
+
+    public String getNamespaceURI() {
+        if (! hasName()) {
+            return null;
+        }
+        final String namespaceURI = buffer.symbol(buffer.get(element() + START_NAMESPACE));
+        return namespaceURI.isEmpty() ? null : namespaceURI;
+    }
+
+    public String getPrefix() {
+        if (! hasName()) {
+            return null;
+        }
+        return buffer.symbol(buffer.get(element() + START_PREFIX));
+    }
+
+    public String getVersion() {
+        return null;
+    }
+
+    public boolean isStandalone() {
+        return false;
+    }
+
+    public boolean standaloneSet() {
+        return false;
+    }
+
+    public String getCharacterEncodingScheme() {
+        return null;
+    }
+
+    public String getPITarget() {
+        return type() == PROCESSING_INSTRUCTION ? buffer.symbol(buffer.get(offset + TEXT_NAME)) : null;
+    }
+
+    public String getPIData() {
+        return type() == PROCESSING_INSTRUCTION ? buffer.text(buffer.get(offset + TEXT_START), buffer.get(offset + TEXT_LENGTH)) : null;
+    }
+
+    /**
+     * The namespace context of the current position, whose scopes are the offsets of the open start elements.
+     */
+    private final class ScopedNamespaceContext implements NamespaceContext {
+        private int[] scopes = new int[8];
+        private int depth;
+
+        void push(final int start) {
+            if (depth == scopes.length) {
+                scopes = Arrays.copyOf(scopes, depth << 1);
+            }
+            scopes[depth++] = start;
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        public String getNamespaceURI(final String prefix) {
+            if (prefix == null) {
+                throw new IllegalArgumentException("Prefix is null");
+            }
+            if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+                return XMLConstants.XML_NS_URI;
+            }
+            if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+                return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+            }
+            for (int i = depth - 1; i >= 0; i--) {
+                final int start = scopes[i];
+                final int count = buffer.get(start + START_NAMESPACE_COUNT);
+                int base = start + START_SIZE + buffer.get(start + START_ATTRIBUTE_COUNT) * ATTRIBUTE_SIZE;
+                for (int j = 0; j < count; j++, base += NAMESPACE_SIZE) {
+                    if (buffer.symbol(buffer.get(base)).equals(prefix)) {
+                        return buffer.symbol(buffer.get(base + 1));
+                    }
+                }
+            }
+            final String namespaceURI = buffer.inheritedNamespaceURI(prefix);
+            return namespaceURI == null ? prefix.isEmpty() ? XMLConstants.NULL_NS_URI : null : namespaceURI;
+        }
+
+        public String getPrefix(final String namespaceURI) {
+            final Iterator<String> iterator = getPrefixes(namespaceURI);
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        public Iterator<String> getPrefixes(final String namespaceURI) {
+            if (namespaceURI == null) {
+                throw new IllegalArgumentException("Namespace URI is null");
+            }
+            final List<String> prefixes = new ArrayList<>();
+            for (int i = depth - 1; i >= 0; i--) {
+                final int start = scopes[i];
+                final int count = buffer.get(start + START_NAMESPACE_COUNT);
+                int base = start + START_SIZE + buffer.get(start + START_ATTRIBUTE_COUNT) * ATTRIBUTE_SIZE;
+                for (int j = 0; j < count; j++, base += NAMESPACE_SIZE) {
+                    addPrefix(prefixes, buffer.symbol(buffer.get(base)), buffer.symbol(buffer.get(base + 1)), namespaceURI);
+                }
+            }
+            final String[] inherited = buffer.inherited();
+            for (int i = 0; i < inherited.length; i += 2) {
+                addPrefix(prefixes, inherited[i], inherited[i + 1], namespaceURI);
+            }
+            return Collections.unmodifiableList(prefixes).iterator();
+        }
+
+        private void addPrefix(final List<String> prefixes, final String prefix, final String boundURI, final String namespaceURI) {
+            if (boundURI.equals(namespaceURI) && ! prefixes.contains(prefix) && namespaceURI.equals(getNamespaceURI(prefix))) {
+                prefixes.add(prefix);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A session which passes each document to the methods of its mapper, for mappers with no state to reuse.
+ */
+final class DelegatingXMLMapperSession implements XMLMapperSession {
+    private final XMLMapper mapper;
+    private boolean closed;
+
+    DelegatingXMLMapperSession(final XMLMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final XMLStreamReader reader) throws XMLStreamException {
+        checkOpen();
+        mapper.parseDocument(rootObject, reader);
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final Path path) throws XMLStreamException {
+        checkOpen();
+        mapper.parseDocument(rootObject, path);
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final byte[] document) throws XMLStreamException {
+        checkOpen();
+        mapper.parseDocument(rootObject, document);
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final ByteBuffer document) throws XMLStreamException {
+        checkOpen();
+        mapper.parseDocument(rootObject, document);
+    }
+
+    @Override
+    public void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        checkOpen();
+        mapper.deparseDocument(writer, rootObject, streamWriter);
+    }
+
+    @Override
+    public void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final OutputStream stream) throws XMLStreamException {
+        checkOpen();
+        mapper.deparseDocument(writer, rootObject, stream);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    // private members
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+    }
+}
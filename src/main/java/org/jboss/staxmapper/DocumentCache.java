@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A binary cache of a document file, kept in a file next to it.  The cache holds the root element of the document as
+ * an {@link XMLEventBuffer}, keyed by the SHA-256 digest of the document, so that an unchanged document can be replayed
+ * without tokenizing, decoding or resolving names again.  A cache which does not match the document, or which is of
+ * another format, is replaced; one which cannot be written is simply not used.
+ * <p>
+ * The cache format is: the magic number, the format version, the digest of the document, the length and CRC-32 of the
+ * payload, then the payload, which is the {@linkplain XMLEventBuffer#write(java.io.DataOutput) buffer}.
+ */
+final class DocumentCache {
+    // The suffix appended to the document file name
+    static final String SUFFIX = ".stxc";
+    // "STXC"
+    private static final int MAGIC = 0x53545843;
+    private static final int VERSION = 1;
+    private static final int DIGEST_LENGTH = 32;
+    private static final int HEADER_LENGTH = Integer.BYTES * 2 + DIGEST_LENGTH + Integer.BYTES + Long.BYTES;
+
+    private DocumentCache() {
+    }
+
+    /**
+     * Get a reader over the root element of a document, from its cache if that is valid, or else by parsing the
+     * document and caching it.
+     *
+     * @param path the document file
+     * @param document the content of the file
+     * @return a reader positioned on the {@code START_ELEMENT} of the root element
+     * @throws XMLStreamException if the document cannot be parsed
+     */
+    static BufferedXMLStreamReader open(final Path path, final ByteBuffer document) throws XMLStreamException {
+        final MessageDigest digest = SnapshotCache.newDigest();
+        digest.update(document.duplicate());
+        final byte[] hash = digest.digest();
+        final Path cachePath = cachePath(path);
+        XMLEventBuffer buffer = load(cachePath, hash);
+        if (buffer == null) {
+            buffer = record(document, path.toUri().toString());
+            store(cachePath, hash, buffer);
+        }
+        return new BufferedXMLStreamReader(buffer);
+    }
+
+    static Path cachePath(final Path path) {
+        return path.resolveSibling(path.getFileName().toString() + SUFFIX);
+    }
+
+    private static XMLEventBuffer record(final ByteBuffer document, final String systemId) throws XMLStreamException {
+        final XMLStreamReader reader = DocumentInput.createReader(document, systemId);
+        try {
+            reader.require(START_DOCUMENT, null, null);
+            reader.nextTag();
+            final XMLEventBuffer buffer = XMLEventBuffer.record(reader);
+            // Check that the rest of the document is well-formed too
+            while (reader.next() != END_DOCUMENT) {
+            }
+            return buffer;
+        } finally {
+            try {
+                reader.close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+    }
+
+    private static XMLEventBuffer load(final Path cachePath, final byte[] hash) {
+        if (! Files.isRegularFile(cachePath)) {
+            return null;
+        }
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(cachePath));
+            if (in.remaining() < HEADER_LENGTH || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return null;
+            }
+            final byte[] cachedHash = new byte[DIGEST_LENGTH];
+            in.get(cachedHash);
+            if (! MessageDigest.isEqual(hash, cachedHash)) {
+                return null;
+            }
+            final int length = in.getInt();
+            final long checksum = in.getLong();
+            if (length != in.remaining()) {
+                return null;
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(in.duplicate());
+            if (crc.getValue() != checksum) {
+                return null;
+            }
+            return XMLEventBuffer.read(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void store(final Path cachePath, final byte[] hash, final XMLEventBuffer buffer) {
+        Path temp = null;
+        try {
+            final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(payload)) {
+                buffer.write(out);
+            }
+            final byte[] bytes = payload.toByteArray();
+            final CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC).putInt(VERSION).put(hash).putInt(bytes.length).putLong(crc.getValue());
+            ((Buffer) header).flip();
+            // Write a temporary file then move it, so that a cache is never seen partially written
+            temp = Files.createTempFile(cachePath.toAbsolutePath().getParent(), cachePath.getFileName().toString(), ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                out.write(header.array(), 0, header.limit());
+                out.write(bytes);
+            }
+            Files.move(temp, cachePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temp = null;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // The cache is optional
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Creates XML stream readers over documents in memory or in files.  The encoding of a document is detected by the
+ * input factory from its byte order mark or XML declaration.
+ */
+final class DocumentInput {
+    // Files at least this large are mapped rather than read
+    private static final long MAPPING_THRESHOLD = 256 * 1024;
+
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    static {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        INPUT_FACTORY = inputFactory;
+    }
+
+    private DocumentInput() {
+    }
+
+    /**
+     * Read the content of a file, mapping it into memory if it is large.
+     *
+     * @param path the file
+     * @return the content
+     * @throws XMLStreamException if the file cannot be read
+     */
+    static ByteBuffer read(final Path path) throws XMLStreamException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            // Read from the open channel, rather than opening the file again
+            final ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+            }
+            ((Buffer) bytes).flip();
+            return bytes;
+        } catch (IOException e) {
+            throw new XMLStreamException("Failed to read " + path, e);
+        }
+    }
+
+    /**
+     * Create a reader over the remaining bytes of a buffer.  The position of the buffer is not changed.
+     *
+     * @param document the document
+     * @param systemId the system ID of the document, or {@code null} if none
+     * @return the reader
+     * @throws XMLStreamException if the reader cannot be created
+     */
+    static XMLStreamReader createReader(final ByteBuffer document, final String systemId) throws XMLStreamException {
+        // The factory detects the encoding from the byte order mark or the XML declaration
+        return INPUT_FACTORY.createXMLStreamReader(systemId, new ByteBufferInputStream(document.duplicate()));
+    }
+
+    /**
+     * An input stream over the remaining bytes of a buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        ByteBufferInputStream(final ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            final int remaining = bytes.remaining();
+            if (remaining == 0) {
+                return -1;
+            }
+            final int count = Math.min(len, remaining);
+            bytes.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int count = (int) Math.max(0, Math.min(n, bytes.remaining()));
+            ((Buffer) bytes).position(bytes.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return bytes.remaining();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.lang.reflect.Array;
+import java.util.function.Function;
+
+/**
+ * Resolves attribute values to the constants of an enum type, via a lookup table built once per enum type.
+ * Values are mapped either by {@link Enum#name()} or by custom XML names, such as the lowercase or hyphenated
+ * names commonly used by schemas.  Lookups do not allocate, and unknown values may resolve to a sentinel constant
+ * instead of throwing an exception.
+ *
+ * @param <E> the enum type
+ * @see XMLMapper#registerEnumValueResolver(EnumValueResolver)
+ */
+public final class EnumValueResolver<E extends Enum<E>> {
+    private final Class<E> type;
+    private final String[] names;
+    private final E[] values;
+    private final int mask;
+    private final boolean strict;
+    private final E unknown;
+
+    private EnumValueResolver(final Class<E> type, final Function<? super E, String> nameFunction, final boolean strict, final E unknown) {
+        this.type = type;
+        this.strict = strict;
+        this.unknown = unknown;
+        final E[] constants = type.getEnumConstants();
+        int size = 4;
+        while (size < constants.length * 2) {
+            size <<= 1;
+        }
+        names = new String[size];
+        @SuppressWarnings("unchecked")
+        final E[] values = (E[]) Array.newInstance(type, size);
+        this.values = values;
+        mask = size - 1;
+        for (E constant : constants) {
+            final String name = nameFunction.apply(constant);
+            if (name == null) {
+                continue;
+            }
+            int index = name.hashCode() & mask;
+            while (names[index] != null) {
+                if (names[index].equals(name)) {
+                    throw new IllegalArgumentException("Duplicate name '" + name + "' for " + values[index] + " and " + constant);
+                }
+                index = (index + 1) & mask;
+            }
+            names[index] = name;
+            values[index] = constant;
+        }
+    }
+
+    /**
+     * Create a resolver which maps values by {@link Enum#name()}, and rejects unknown values, like
+     * {@link Enum#valueOf(Class, String)}.
+     *
+     * @param type the enum type
+     * @param <E> the enum type
+     * @return the resolver
+     */
+    public static <E extends Enum<E>> EnumValueResolver<E> of(Class<E> type) {
+        return new EnumValueResolver<>(type, Enum::name, true, null);
+    }
+
+    /**
+     * Create a resolver which maps values by the given XML names, and resolves unknown values to the given constant.
+     * Constants whose name is {@code null} cannot be resolved by name.
+     *
+     * @param type the enum type
+     * @param names the function providing the XML name of each constant
+     * @param unknown the constant to resolve unknown values to, or {@code null}
+     * @param <E> the enum type
+     * @return the resolver
+     */
+    public static <E extends Enum<E>> EnumValueResolver<E> of(Class<E> type, Function<? super E, String> names, E unknown) {
+        return new EnumValueResolver<>(type, names, false, unknown);
+    }
+
+    /**
+     * Get the enum type of this resolver.
+     *
+     * @return the enum type
+     */
+    public Class<E> getType() {
+        return type;
+    }
+
+    /**
+     * Resolve a value.
+     *
+     * @param value the value
+     * @return the constant, or the unknown value sentinel
+     * @throws IllegalArgumentException if the value is unknown and this resolver rejects unknown values
+     */
+    public E resolve(final String value) {
+        int index = value.hashCode() & mask;
+        String name;
+        while ((name = names[index]) != null) {
+            if (name.equals(value)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return unknown(value);
+    }
+
+    /**
+     * Resolve a region of a character sequence, without creating a string for it.
+     *
+     * @param value the character sequence
+     * @param start the start index of the region, inclusive
+     * @param end the end index of the region, exclusive
+     * @return the constant, or the unknown value sentinel
+     * @throws IllegalArgumentException if the value is unknown and this resolver rejects unknown values
+     */
+    public E resolve(final CharSequence value, final int start, final int end) {
+        // Same as String.hashCode()
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        int index = hash & mask;
+        String name;
+        while ((name = names[index]) != null) {
+            if (regionEquals(name, value, start, end)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return unknown(value.subSequence(start, end).toString());
+    }
+
+    private static boolean regionEquals(final String name, final CharSequence value, final int start, final int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != value.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private E unknown(final String value) {
+        if (strict) {
+            throw new IllegalArgumentException("No enum constant " + type.getCanonicalName() + "." + value);
+        }
+        return unknown;
+    }
+}
@@ -29,12 +29,16 @@ import javax.xml.stream.XMLStreamReader;
  */
 final class FixedXMLStreamReader implements XMLStreamReader {
 
-    private final XMLStreamReader delegate;
+    private XMLStreamReader delegate;
 
     FixedXMLStreamReader(final XMLStreamReader delegate) {
         this.delegate = delegate;
     }
 
+    void reset(final XMLStreamReader delegate) {
+        this.delegate = delegate;
+    }
+
     public Object getProperty(final String name) throws IllegalArgumentException {
         return delegate.getProperty(name);
     }
@@ -18,8 +18,8 @@
 
 package org.jboss.staxmapper;
 
-import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import javax.xml.namespace.NamespaceContext;
@@ -34,8 +34,24 @@ import javax.xml.stream.XMLStreamWriter;
  */
 public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter, XMLStreamConstants {
     private static final String NO_NAMESPACE = new String();
-    private final XMLStreamWriter delegate;
-    private final ArrayDeque<ArgRunnable> attrQueue = new ArrayDeque<ArgRunnable>();
+    private static final int INDENT = 4;
+    private static final char[] WHITESPACE;
+
+    static {
+        final char[] whitespace = new char[1 + 16 * INDENT];
+        whitespace[0] = '\n';
+        Arrays.fill(whitespace, 1, whitespace.length, ' ');
+        WHITESPACE = whitespace;
+    }
+
+    private XMLStreamWriter delegate;
+    // Pending start element, namespace and attribute writes, replayed once it is known whether the element is empty
+    private int[] pendingKinds = new int[16];
+    private String[] pendingNames = new String[16 * 3];
+    private Object[] pendingValues = new Object[16];
+    private int pendingCount;
+    // Shared until a deeper level than it covers is reached; never modified
+    private char[] whitespace = WHITESPACE;
     private int level;
     private int state = START_DOCUMENT;
     private boolean indentEndElement = false;
@@ -47,20 +63,75 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
         unspecifiedNamespaces.push(NO_NAMESPACE);
     }
 
+    /**
+     * Reset this writer to format a new document on to another delegate, keeping its buffers.
+     *
+     * @param delegate the delegate
+     */
+    void reset(final XMLStreamWriter delegate) {
+        this.delegate = delegate;
+        Arrays.fill(pendingNames, 0, pendingCount * 3, null);
+        Arrays.fill(pendingValues, 0, pendingCount, null);
+        pendingCount = 0;
+        level = 0;
+        state = START_DOCUMENT;
+        indentEndElement = false;
+        unspecifiedNamespaces.clear();
+        unspecifiedNamespaces.push(NO_NAMESPACE);
+    }
+
     private void nl() throws XMLStreamException {
-        delegate.writeCharacters("\n");
+        delegate.writeCharacters(whitespace, 0, 1);
     }
 
-    private void indent() throws XMLStreamException {
-        int level = this.level;
-        final XMLStreamWriter delegate = this.delegate;
-        for (int i = 0; i < level; i ++) {
-            delegate.writeCharacters("    ");
-        }
+    private void nlIndent() throws XMLStreamException {
+        final int length = indentLength();
+        delegate.writeCharacters(whitespace(length), 0, length);
     }
 
-    private interface ArgRunnable {
-        void run(int arg) throws XMLStreamException;
+    /**
+     * Get the length of a newline followed by the indentation of the current level.
+     */
+    private int indentLength() {
+        return 1 + Math.max(level, 0) * INDENT;
+    }
+
+    /**
+     * Get a newline followed by spaces, with at least the given total length.
+     */
+    private char[] whitespace(final int length) {
+        char[] whitespace = this.whitespace;
+        if (length > whitespace.length) {
+            whitespace = new char[Math.max(length, whitespace.length << 1)];
+            whitespace[0] = '\n';
+            Arrays.fill(whitespace, 1, whitespace.length, ' ');
+            this.whitespace = whitespace;
+        }
+        return whitespace;
+    }
+
+    private static final int START_LOCAL = 0;
+    private static final int START_NS = 1;
+    private static final int START_PREFIX_NS = 2;
+    private static final int ATTRIBUTE_LOCAL = 3;
+    private static final int ATTRIBUTE_NS = 4;
+    private static final int ATTRIBUTE_PREFIX_NS = 5;
+    private static final int NAMESPACE = 6;
+    private static final int DEFAULT_NAMESPACE = 7;
+
+    private void addPending(final int kind, final String prefix, final String namespaceURI, final String localName, final Object value) {
+        final int count = pendingCount;
+        if (count == pendingKinds.length) {
+            pendingKinds = Arrays.copyOf(pendingKinds, count << 1);
+            pendingNames = Arrays.copyOf(pendingNames, count * 6);
+            pendingValues = Arrays.copyOf(pendingValues, count << 1);
+        }
+        pendingKinds[count] = kind;
+        pendingNames[count * 3] = prefix;
+        pendingNames[count * 3 + 1] = namespaceURI;
+        pendingNames[count * 3 + 2] = localName;
+        pendingValues[count] = value;
+        pendingCount = count + 1;
     }
 
     @Override
@@ -90,17 +161,8 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
 
         // If this is a nested element flush the outer
         runAttrQueue();
-        nl();
-        indent();
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                if (arg == 0) {
-                    delegate.writeStartElement(localName);
-                } else {
-                    delegate.writeEmptyElement(localName);
-                }
-            }
-        });
+        nlIndent();
+        addPending(START_LOCAL, null, null, localName, null);
 
         level++;
         state = START_ELEMENT;
@@ -113,17 +175,8 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
 
         // If this is a nested element flush the outer
         runAttrQueue();
-        nl();
-        indent();
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                if (arg == 0) {
-                    delegate.writeStartElement(namespaceURI, localName);
-                } else {
-                    delegate.writeEmptyElement(namespaceURI, localName);
-                }
-            }
-        });
+        nlIndent();
+        addPending(START_NS, null, namespaceURI, localName, null);
         level++;
         state = START_ELEMENT;
         indentEndElement = false;
@@ -135,17 +188,8 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
 
         // If this is a nested element flush the outer
         runAttrQueue();
-        nl();
-        indent();
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                if (arg == 0) {
-                    delegate.writeStartElement(prefix, namespaceURI, localName);
-                } else {
-                    delegate.writeEmptyElement(prefix, namespaceURI, localName);
-                }
-            }
-        });
+        nlIndent();
+        addPending(START_PREFIX_NS, prefix, namespaceURI, localName, null);
         level++;
         state = START_ELEMENT;
         indentEndElement = false;
@@ -154,8 +198,7 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
     @Override
     public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
         runAttrQueue();
-        nl();
-        indent();
+        nlIndent();
         delegate.writeEmptyElement(namespaceURI, localName);
         state = END_ELEMENT;
     }
@@ -163,8 +206,7 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
     @Override
     public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
         runAttrQueue();
-        nl();
-        indent();
+        nlIndent();
         delegate.writeEmptyElement(prefix, namespaceURI, localName);
         state = END_ELEMENT;
     }
@@ -178,8 +220,7 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
         }
 
         runAttrQueue();
-        nl();
-        indent();
+        nlIndent();
         delegate.writeEmptyElement(localName);
         state = END_ELEMENT;
     }
@@ -190,20 +231,18 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
         if (state != START_ELEMENT) {
             runAttrQueue();
             if (state != CHARACTERS || indentEndElement) {
-                nl();
-                indent();
+                nlIndent();
                 indentEndElement = false;
             }
             delegate.writeEndElement();
         } else {
             // Change the start element to an empty element
-            ArgRunnable start = attrQueue.poll();
-            if (start == null) {
-                delegate.writeEndElement();
+            final int kind = pendingCount == 0 ? -1 : pendingKinds[0];
+            if (kind == START_LOCAL || kind == START_NS || kind == START_PREFIX_NS) {
+                writePending(true);
             } else {
-                start.run(1);
-                // Write everything else
                 runAttrQueue();
+                delegate.writeEndElement();
             }
         }
 
@@ -212,9 +251,75 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
     }
 
     private void runAttrQueue() throws XMLStreamException {
-        ArgRunnable attr;
-        while ((attr = attrQueue.poll()) != null) {
-            attr.run(0);
+        if (pendingCount > 0) {
+            writePending(false);
+        }
+    }
+
+    private void writePending(final boolean empty) throws XMLStreamException {
+        final XMLStreamWriter delegate = this.delegate;
+        final int[] kinds = pendingKinds;
+        final String[] names = pendingNames;
+        final Object[] values = pendingValues;
+        final int count = pendingCount;
+        // Reset first, so that a failed write does not leave the pending writes to be replayed again
+        pendingCount = 0;
+        for (int i = 0; i < count; i++) {
+            final String prefix = names[i * 3];
+            final String namespaceURI = names[i * 3 + 1];
+            final String localName = names[i * 3 + 2];
+            final Object value = values[i];
+            names[i * 3] = names[i * 3 + 1] = names[i * 3 + 2] = null;
+            values[i] = null;
+            switch (kinds[i]) {
+                case START_LOCAL: {
+                    if (empty) {
+                        delegate.writeEmptyElement(localName);
+                    } else {
+                        delegate.writeStartElement(localName);
+                    }
+                    break;
+                }
+                case START_NS: {
+                    if (empty) {
+                        delegate.writeEmptyElement(namespaceURI, localName);
+                    } else {
+                        delegate.writeStartElement(namespaceURI, localName);
+                    }
+                    break;
+                }
+                case START_PREFIX_NS: {
+                    if (empty) {
+                        delegate.writeEmptyElement(prefix, namespaceURI, localName);
+                    } else {
+                        delegate.writeStartElement(prefix, namespaceURI, localName);
+                    }
+                    break;
+                }
+                case ATTRIBUTE_LOCAL: {
+                    delegate.writeAttribute(localName, join(value));
+                    break;
+                }
+                case ATTRIBUTE_NS: {
+                    delegate.writeAttribute(namespaceURI, localName, join(value));
+                    break;
+                }
+                case ATTRIBUTE_PREFIX_NS: {
+                    delegate.writeAttribute(prefix, namespaceURI, localName, join(value));
+                    break;
+                }
+                case NAMESPACE: {
+                    delegate.writeNamespace(prefix, namespaceURI);
+                    break;
+                }
+                case DEFAULT_NAMESPACE: {
+                    delegate.writeDefaultNamespace(namespaceURI);
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException();
+                }
+            }
         }
     }
 
@@ -237,113 +342,64 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
 
     @Override
     public void writeAttribute(final String localName, final String value) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                try {
-                    delegate.writeAttribute(localName, value);
-                } catch (XMLStreamException e) {
-                    throw new UndeclaredThrowableException(e);
-                }
-            }
-        });
+        addPending(ATTRIBUTE_LOCAL, null, null, localName, value);
     }
 
     @Override
     public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String value) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(prefix, namespaceURI, localName, value);
-            }
-        });
+        addPending(ATTRIBUTE_PREFIX_NS, prefix, namespaceURI, localName, value);
     }
 
     @Override
     public void writeAttribute(final String namespaceURI, final String localName, final String value) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(namespaceURI, localName, value);
-            }
-        });
+        addPending(ATTRIBUTE_NS, null, namespaceURI, localName, value);
     }
 
     @Override
     public void writeAttribute(final String localName, final String[] values) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(localName, join(values));
-            }
-        });
+        addPending(ATTRIBUTE_LOCAL, null, null, localName, values);
     }
 
     @Override
     public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String[] values) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(prefix, namespaceURI, localName, join(values));
-            }
-        });
+        addPending(ATTRIBUTE_PREFIX_NS, prefix, namespaceURI, localName, values);
     }
 
     @Override
     public void writeAttribute(final String namespaceURI, final String localName, final String[] values) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(namespaceURI, localName, join(values));
-            }
-        });
+        addPending(ATTRIBUTE_NS, null, namespaceURI, localName, values);
     }
 
     @Override
     public void writeAttribute(final String localName, final Iterable<String> values) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(localName, join(values));
-            }
-        });
+        addPending(ATTRIBUTE_LOCAL, null, null, localName, values);
     }
 
     @Override
     public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final Iterable<String> values) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(prefix, namespaceURI, localName, join(values));
-            }
-        });
+        addPending(ATTRIBUTE_PREFIX_NS, prefix, namespaceURI, localName, values);
     }
 
     @Override
     public void writeAttribute(final String namespaceURI, final String localName, final Iterable<String> values) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeAttribute(namespaceURI, localName, join(values));
-            }
-        });
+        addPending(ATTRIBUTE_NS, null, namespaceURI, localName, values);
     }
 
     @Override
     public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeNamespace(prefix, namespaceURI);
-            }
-        });
+        addPending(NAMESPACE, prefix, namespaceURI, null, null);
     }
 
     @Override
     public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
-        attrQueue.add(new ArgRunnable() {
-            public void run(int arg) throws XMLStreamException {
-                delegate.writeDefaultNamespace(namespaceURI);
-            }
-        });
+        addPending(DEFAULT_NAMESPACE, null, namespaceURI, null, null);
     }
 
     @Override
     public void writeComment(final String data) throws XMLStreamException {
         runAttrQueue();
         nl();
-        nl();
-        indent();
+        nlIndent();
         final StringBuilder b = new StringBuilder(data.length());
         final Iterator<String> i = Spliterator.over(data, '\n');
         if (! i.hasNext()) {
@@ -354,26 +410,18 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
                 delegate.writeComment(" " + first + " ");
                 state = COMMENT;
                 return;
-            } else {
-                b.append('\n');
-                for (int q = 0; q < level; q++) {
-                    b.append("    ");
-                }
-                b.append("  ~ ");
-                b.append(first);
-                do {
-                    b.append('\n');
-                    for (int q = 0; q < level; q++) {
-                        b.append("    ");
-                    }
-                    b.append("  ~ ");
-                    b.append(i.next());
-                } while (i.hasNext());
-            }
-            b.append('\n');
-            for (int q = 0; q < level; q ++) {
-                b.append("    ");
             }
+            final int length = indentLength();
+            final char[] whitespace = whitespace(length);
+            b.append(whitespace, 0, length);
+            b.append("  ~ ");
+            b.append(first);
+            do {
+                b.append(whitespace, 0, length);
+                b.append("  ~ ");
+                b.append(i.next());
+            } while (i.hasNext());
+            b.append(whitespace, 0, length);
             b.append("  ");
             delegate.writeComment(b.toString());
             state = COMMENT;
@@ -383,8 +431,7 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
     @Override
     public void writeProcessingInstruction(final String target) throws XMLStreamException {
         runAttrQueue();
-        nl();
-        indent();
+        nlIndent();
         delegate.writeProcessingInstruction(target);
         state = PROCESSING_INSTRUCTION;
     }
@@ -392,8 +439,7 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
     @Override
     public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
         runAttrQueue();
-        nl();
-        indent();
+        nlIndent();
         delegate.writeProcessingInstruction(target, data);
         state = PROCESSING_INSTRUCTION;
     }
@@ -407,8 +453,7 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
 
     @Override
     public void writeDTD(final String dtd) throws XMLStreamException {
-        nl();
-        indent();
+        nlIndent();
         delegate.writeDTD(dtd);
         state = DTD;
     }
@@ -445,16 +490,14 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
     public void writeCharacters(final String text) throws XMLStreamException {
         runAttrQueue();
         if (state != CHARACTERS) {
-            nl();
-            indent();
+            nlIndent();
         }
         final Iterator<String> iterator = Spliterator.over(text, '\n');
         while (iterator.hasNext()) {
             final String t = iterator.next();
             delegate.writeCharacters(t);
             if (iterator.hasNext()) {
-                nl();
-                indent();
+                nlIndent();
             }
         }
         state = CHARACTERS;
@@ -499,6 +542,16 @@ public final class FormattingXMLStreamWriter implements XMLExtendedStreamWriter,
         return delegate.getProperty(name);
     }
 
+    @SuppressWarnings("unchecked")
+    private static String join(final Object value) {
+        if (value instanceof String[]) {
+            return join((String[]) value);
+        } else if (value instanceof Iterable) {
+            return join((Iterable<String>) value);
+        }
+        return (String) value;
+    }
+
     private static String join(final String[] values) {
         final StringBuilder b = new StringBuilder();
         for (int i = 0, valuesLength = values.length; i < valuesLength; i++) {
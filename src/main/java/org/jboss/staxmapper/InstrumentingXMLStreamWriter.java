@@ -0,0 +1,375 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.Arrays;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * An XML stream writer which reports the significant elements written through it to an {@link XMLDeparseListener}.
+ * Only used while a listener is set, so that deparsing is not slowed down otherwise.
+ */
+final class InstrumentingXMLStreamWriter implements XMLExtendedStreamWriter {
+    private final XMLExtendedStreamWriter delegate;
+    private final UTF8XMLStreamWriter byteCounter;
+    private final XMLDeparseListener listener;
+    // Open elements, indexed by depth; index 0 holds the settings of the document itself
+    private String[] namespaces = new String[16];
+    private String[] localNames = new String[16];
+    private String[] defaultNamespaces = new String[16];
+    private String[] unspecifiedNamespaces = new String[16];
+    private boolean[] timed = new boolean[16];
+    private long[] startTimes = new long[16];
+    private int[] elementMarks = new int[16];
+    private int[] attributeMarks = new int[16];
+    private long[] byteMarks = new long[16];
+    private int depth;
+    private int elements;
+    private int attributes;
+    // Whether namespace declarations belong to an empty element rather than the open element
+    private boolean emptyElement;
+
+    InstrumentingXMLStreamWriter(final XMLExtendedStreamWriter delegate, final XMLDeparseListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+        byteCounter = delegate instanceof UTF8XMLStreamWriter ? (UTF8XMLStreamWriter) delegate : null;
+        defaultNamespaces[0] = XMLConstants.NULL_NS_URI;
+    }
+
+    XMLExtendedStreamWriter getDelegate() {
+        return delegate;
+    }
+
+    private long byteCount() {
+        return byteCounter == null ? -1L : byteCounter.getByteCount();
+    }
+
+    /**
+     * Record the start of an element.
+     *
+     * @param namespaceURI the namespace of the element, or {@code null} if it is in the default namespace
+     * @param localName the local name of the element
+     * @param bytes the byte count before the element was started
+     */
+    private void start(final String namespaceURI, final String localName, final long bytes) {
+        emptyElement = false;
+        final int depth = this.depth + 1;
+        if (depth == namespaces.length) {
+            final int length = depth << 1;
+            namespaces = Arrays.copyOf(namespaces, length);
+            localNames = Arrays.copyOf(localNames, length);
+            defaultNamespaces = Arrays.copyOf(defaultNamespaces, length);
+            unspecifiedNamespaces = Arrays.copyOf(unspecifiedNamespaces, length);
+            timed = Arrays.copyOf(timed, length);
+            startTimes = Arrays.copyOf(startTimes, length);
+            elementMarks = Arrays.copyOf(elementMarks, length);
+            attributeMarks = Arrays.copyOf(attributeMarks, length);
+            byteMarks = Arrays.copyOf(byteMarks, length);
+        }
+        namespaces[depth] = namespaceURI;
+        localNames[depth] = localName;
+        defaultNamespaces[depth] = defaultNamespaces[depth - 1];
+        unspecifiedNamespaces[depth] = unspecifiedNamespaces[depth - 1];
+        // The root element and its children are always reported
+        final boolean timed = depth <= 2;
+        this.timed[depth] = timed;
+        startTimes[depth] = timed ? System.nanoTime() : 0L;
+        elementMarks[depth] = elements++;
+        attributeMarks[depth] = attributes;
+        byteMarks[depth] = bytes;
+        this.depth = depth;
+    }
+
+    /**
+     * Record a namespace declaration, which makes the element declaring it significant.
+     */
+    private void declared() {
+        final int depth = this.depth;
+        if (! emptyElement && depth > 0 && ! timed[depth]) {
+            timed[depth] = true;
+            startTimes[depth] = System.nanoTime();
+        }
+    }
+
+    private void end() {
+        emptyElement = false;
+        final int depth = this.depth;
+        if (depth == 0) {
+            return;
+        }
+        if (timed[depth]) {
+            final long elapsed = System.nanoTime() - startTimes[depth];
+            final String namespaceURI = namespaces[depth];
+            final QName name = new QName(namespaceURI == null ? defaultNamespaces[depth] : namespaceURI, localNames[depth]);
+            final long bytes = byteCounter == null ? -1L : byteCount() - byteMarks[depth];
+            listener.elementWritten(name, depth, elapsed, elements - elementMarks[depth], attributes - attributeMarks[depth], bytes);
+        }
+        namespaces[depth] = localNames[depth] = defaultNamespaces[depth] = unspecifiedNamespaces[depth] = null;
+        this.depth = depth - 1;
+    }
+
+    @Override
+    public void setUnspecifiedElementNamespace(final String namespace) {
+        delegate.setUnspecifiedElementNamespace(namespace);
+        unspecifiedNamespaces[depth] = namespace;
+    }
+
+    @Override
+    public void writeStartElement(final String localName) throws XMLStreamException {
+        final long bytes = byteCount();
+        delegate.writeStartElement(localName);
+        start(unspecifiedNamespaces[depth], localName, bytes);
+    }
+
+    @Override
+    public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        final long bytes = byteCount();
+        delegate.writeStartElement(namespaceURI, localName);
+        start(namespaceURI, localName, bytes);
+    }
+
+    @Override
+    public void writeStartElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+        final long bytes = byteCount();
+        delegate.writeStartElement(prefix, localName, namespaceURI);
+        start(namespaceURI, localName, bytes);
+    }
+
+    @Override
+    public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        delegate.writeEmptyElement(namespaceURI, localName);
+        elements++;
+        emptyElement = true;
+    }
+
+    @Override
+    public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+        delegate.writeEmptyElement(prefix, localName, namespaceURI);
+        elements++;
+        emptyElement = true;
+    }
+
+    @Override
+    public void writeEmptyElement(final String localName) throws XMLStreamException {
+        delegate.writeEmptyElement(localName);
+        elements++;
+        emptyElement = true;
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        delegate.writeEndElement();
+        end();
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        delegate.writeEndDocument();
+        while (depth > 0) {
+            end();
+        }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        delegate.close();
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        delegate.flush();
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+        delegate.writeAttribute(localName, value);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+        delegate.writeAttribute(prefix, namespaceURI, localName, value);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+        delegate.writeAttribute(namespaceURI, localName, value);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String[] values) throws XMLStreamException {
+        delegate.writeAttribute(localName, values);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String[] values) throws XMLStreamException {
+        delegate.writeAttribute(prefix, namespaceURI, localName, values);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String[] values) throws XMLStreamException {
+        delegate.writeAttribute(namespaceURI, localName, values);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final Iterable<String> values) throws XMLStreamException {
+        delegate.writeAttribute(localName, values);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final Iterable<String> values) throws XMLStreamException {
+        delegate.writeAttribute(prefix, namespaceURI, localName, values);
+        attributes++;
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final Iterable<String> values) throws XMLStreamException {
+        delegate.writeAttribute(namespaceURI, localName, values);
+        attributes++;
+    }
+
+    @Override
+    public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+        delegate.writeNamespace(prefix, namespaceURI);
+        if (prefix == null || prefix.isEmpty() || prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+            defaultNamespace(namespaceURI, true);
+        }
+        declared();
+    }
+
+    @Override
+    public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+        delegate.writeDefaultNamespace(namespaceURI);
+        defaultNamespace(namespaceURI, true);
+        declared();
+    }
+
+    /**
+     * Record the default namespace of the open element.
+     *
+     * @param namespaceURI the namespace
+     * @param declared {@code true} if it is declared by the element itself, and so applies to an unqualified element
+     */
+    private void defaultNamespace(final String namespaceURI, final boolean declared) {
+        final int depth = this.depth;
+        if (emptyElement) {
+            return;
+        }
+        if (namespaces[depth] == null && depth > 0) {
+            namespaces[depth] = declared ? namespaceURI : defaultNamespaces[depth];
+        }
+        defaultNamespaces[depth] = namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI;
+    }
+
+    @Override
+    public void writeComment(final String data) throws XMLStreamException {
+        delegate.writeComment(data);
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target) throws XMLStreamException {
+        delegate.writeProcessingInstruction(target);
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+        delegate.writeProcessingInstruction(target, data);
+    }
+
+    @Override
+    public void writeCData(final String data) throws XMLStreamException {
+        delegate.writeCData(data);
+    }
+
+    @Override
+    public void writeDTD(final String dtd) throws XMLStreamException {
+        delegate.writeDTD(dtd);
+    }
+
+    @Override
+    public void writeEntityRef(final String name) throws XMLStreamException {
+        delegate.writeEntityRef(name);
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        delegate.writeStartDocument();
+    }
+
+    @Override
+    public void writeStartDocument(final String version) throws XMLStreamException {
+        delegate.writeStartDocument(version);
+    }
+
+    @Override
+    public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+        delegate.writeStartDocument(encoding, version);
+    }
+
+    @Override
+    public void writeCharacters(final String text) throws XMLStreamException {
+        delegate.writeCharacters(text);
+    }
+
+    @Override
+    public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+        delegate.writeCharacters(text, start, len);
+    }
+
+    @Override
+    public String getPrefix(final String uri) throws XMLStreamException {
+        return delegate.getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(final String prefix, final String uri) throws XMLStreamException {
+        delegate.setPrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(final String uri) throws XMLStreamException {
+        delegate.setDefaultNamespace(uri);
+        defaultNamespace(uri, false);
+    }
+
+    @Override
+    public void setNamespaceContext(final NamespaceContext context) throws XMLStreamException {
+        delegate.setNamespaceContext(context);
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return delegate.getNamespaceContext();
+    }
+
+    @Override
+    public Object getProperty(final String name) throws IllegalArgumentException {
+        return delegate.getProperty(name);
+    }
+}
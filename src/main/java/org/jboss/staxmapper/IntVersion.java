@@ -19,7 +19,8 @@
 package org.jboss.staxmapper;
 
 import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.IntStream;
 
 /**
@@ -29,7 +30,18 @@ import java.util.stream.IntStream;
 public final class IntVersion implements Comparable<IntVersion> {
     public static final CharSequence DEFAULT_DELIMITER = ".";
 
+    // Versions with at most 4 segments, each within 15 bits, are also packed 16 bits per segment into a long
+    private static final int PACKED_SEGMENTS = 4;
+    private static final int PACKED_SEGMENT_MAX = 0x7fff;
+    private static final long UNPACKED = -1L;
+    // Limits the versions cached by URI, which may come from documents
+    private static final int MAX_CACHED = 1024;
+    private static final ConcurrentMap<String, IntVersion> CACHE = new ConcurrentHashMap<>();
+
     private final int[] segments;
+    private final long packed;
+    private final int hash;
+    private String string;
 
     /**
      * Constructs a version with a variable number of segments.
@@ -42,6 +54,37 @@ public final class IntVersion implements Comparable<IntVersion> {
             length -= 1;
         }
         this.segments = Arrays.copyOf(segments, length);
+        this.packed = pack(this.segments);
+        this.hash = Arrays.hashCode(this.segments);
+    }
+
+    /**
+     * Parses the version that follows the last colon of the specified URI, e.g. {@code 20.0} of
+     * {@code urn:jboss:domain:20.0}, or the whole string if it has no colon.  Parsed versions are cached by URI.
+     * @param uri a namespace URI ending with a version
+     * @return the parsed version
+     * @throws IllegalArgumentException if the URI does not end with a version
+     */
+    public static IntVersion parse(String uri) {
+        IntVersion version = find(uri);
+        if (version == null) {
+            throw new IllegalArgumentException("No version in " + uri);
+        }
+        return version;
+    }
+
+    /**
+     * Like {@link #parse(String)}, but returns {@code null} if the URI does not end with a version.
+     */
+    static IntVersion find(String uri) {
+        IntVersion version = CACHE.get(uri);
+        if (version == null) {
+            version = parse(uri, uri.lastIndexOf(':') + 1);
+            if ((version != null) && (CACHE.size() < MAX_CACHED)) {
+                CACHE.putIfAbsent(uri, version);
+            }
+        }
+        return version;
     }
 
     /**
@@ -108,21 +151,37 @@ public final class IntVersion implements Comparable<IntVersion> {
 
     @Override
     public int compareTo(IntVersion version) {
-        for (int i = 0; i < Math.max(this.segments.length, version.segments.length); ++i) {
-            int result = Integer.compare(this.segment(i), version.segment(i));
+        if ((this.packed != UNPACKED) && (version.packed != UNPACKED)) {
+            return Long.compare(this.packed, version.packed);
+        }
+        int[] segments = version.segments;
+        int common = Math.min(this.segments.length, segments.length);
+        for (int i = 0; i < common; ++i) {
+            int result = Integer.compare(this.segments[i], segments[i]);
             if (result != 0) return result;
         }
+        // Neither version has trailing zeros, so the longer one has a non-zero segment where the other has none
+        for (int i = common; i < this.segments.length; ++i) {
+            if (this.segments[i] != 0) return Integer.signum(this.segments[i]);
+        }
+        for (int i = common; i < segments.length; ++i) {
+            if (segments[i] != 0) return -Integer.signum(segments[i]);
+        }
         return 0;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(this.segments);
+        return this.hash;
     }
 
     @Override
     public boolean equals(Object object) {
-        return (this == object) || (object instanceof IntVersion) && (this.compareTo((IntVersion) object) == 0);
+        if (this == object) return true;
+        if (!(object instanceof IntVersion)) return false;
+        IntVersion version = (IntVersion) object;
+        // Equal versions are either both packed or both unpacked
+        return (this.packed != UNPACKED) ? (this.packed == version.packed) : Arrays.equals(this.segments, version.segments);
     }
 
     /**
@@ -131,7 +190,12 @@ public final class IntVersion implements Comparable<IntVersion> {
      */
     @Override
     public String toString() {
-        return this.toString(this.segments.length);
+        String string = this.string;
+        if (string == null) {
+            string = this.toString(this.segments.length);
+            this.string = string;
+        }
+        return string;
     }
 
     /**
@@ -151,6 +215,53 @@ public final class IntVersion implements Comparable<IntVersion> {
      * @return a string representation of this version
      */
     public String toString(int segments, CharSequence delimiter) {
-        return this.stream(segments).mapToObj(String::valueOf).collect(Collectors.joining(delimiter));
+        StringBuilder builder = new StringBuilder(segments * 3);
+        for (int i = 0; i < segments; ++i) {
+            if (i > 0) {
+                builder.append(delimiter);
+            }
+            builder.append(this.segment(i));
+        }
+        return builder.toString();
+    }
+
+    private static long pack(int[] segments) {
+        if (segments.length > PACKED_SEGMENTS) return UNPACKED;
+        long packed = 0;
+        for (int i = 0; i < PACKED_SEGMENTS; ++i) {
+            int segment = (i < segments.length) ? segments[i] : 0;
+            if ((segment < 0) || (segment > PACKED_SEGMENT_MAX)) return UNPACKED;
+            packed = (packed << 16) | segment;
+        }
+        return packed;
+    }
+
+    private static IntVersion parse(String uri, int start) {
+        int length = uri.length();
+        if (start == length) return null;
+        int[] segments = new int[PACKED_SEGMENTS];
+        int count = 0;
+        int segment = -1;
+        for (int i = start; i < length; ++i) {
+            char c = uri.charAt(i);
+            if ((c >= '0') && (c <= '9')) {
+                if (segment > (Integer.MAX_VALUE - 9) / 10) return null;
+                segment = Math.max(segment, 0) * 10 + (c - '0');
+            } else if ((c == '.') && (segment >= 0)) {
+                if (count == segments.length) {
+                    segments = Arrays.copyOf(segments, count << 1);
+                }
+                segments[count++] = segment;
+                segment = -1;
+            } else {
+                return null;
+            }
+        }
+        if (segment < 0) return null;
+        if (count == segments.length) {
+            segments = Arrays.copyOf(segments, count + 1);
+        }
+        segments[count++] = segment;
+        return new IntVersion(Arrays.copyOf(segments, count));
     }
 }
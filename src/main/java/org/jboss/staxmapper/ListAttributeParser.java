@@ -0,0 +1,339 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+/**
+ * Parsers for whitespace-separated lists of primitive values, as found in {@code xs:list} typed attributes.
+ * Tokens are parsed directly from the characters of the attribute value, without creating a string per token.
+ * Tokens may be separated by any run of XML whitespace, and leading or trailing whitespace is ignored.
+ */
+final class ListAttributeParser {
+
+    private static final int[] NO_INTS = new int[0];
+    private static final long[] NO_LONGS = new long[0];
+    private static final double[] NO_DOUBLES = new double[0];
+    private static final boolean[] NO_BOOLEANS = new boolean[0];
+
+    // Powers of ten which are exactly representable as a double
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    private ListAttributeParser() {
+    }
+
+    static int[] parseInts(final String value) {
+        final int count = countTokens(value);
+        if (count == 0) {
+            return NO_INTS;
+        }
+        final int[] ints = new int[count];
+        int i = 0;
+        for (int n = 0; n < count; n++) {
+            i = skipWhitespace(value, i);
+            final int end = skipToken(value, i);
+            ints[n] = parseInt(value, i, end);
+            i = end;
+        }
+        return ints;
+    }
+
+    static long[] parseLongs(final String value) {
+        final int count = countTokens(value);
+        if (count == 0) {
+            return NO_LONGS;
+        }
+        final long[] longs = new long[count];
+        int i = 0;
+        for (int n = 0; n < count; n++) {
+            i = skipWhitespace(value, i);
+            final int end = skipToken(value, i);
+            longs[n] = parseLong(value, i, end);
+            i = end;
+        }
+        return longs;
+    }
+
+    static double[] parseDoubles(final String value) {
+        final int count = countTokens(value);
+        if (count == 0) {
+            return NO_DOUBLES;
+        }
+        final double[] doubles = new double[count];
+        int i = 0;
+        for (int n = 0; n < count; n++) {
+            i = skipWhitespace(value, i);
+            final int end = skipToken(value, i);
+            doubles[n] = parseDouble(value, i, end);
+            i = end;
+        }
+        return doubles;
+    }
+
+    static boolean[] parseBooleans(final String value) {
+        final int count = countTokens(value);
+        if (count == 0) {
+            return NO_BOOLEANS;
+        }
+        final boolean[] booleans = new boolean[count];
+        int i = 0;
+        for (int n = 0; n < count; n++) {
+            i = skipWhitespace(value, i);
+            final int end = skipToken(value, i);
+            booleans[n] = parseBoolean(value, i, end);
+            i = end;
+        }
+        return booleans;
+    }
+
+    static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static int countTokens(final String value) {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = 0; i < value.length(); i++) {
+            final boolean whitespace = isWhitespace(value.charAt(i));
+            if (! whitespace && ! inToken) {
+                count++;
+            }
+            inToken = ! whitespace;
+        }
+        return count;
+    }
+
+    private static int skipWhitespace(final String value, int i) {
+        while (isWhitespace(value.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipToken(final String value, int i) {
+        final int length = value.length();
+        while (i < length && ! isWhitespace(value.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    static int parseInt(final String value, final int start, final int end) {
+        int i = start;
+        final char first = value.charAt(i);
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw numberFormatException(value, start, end);
+        }
+        // Accumulate negatively, to allow for Integer.MIN_VALUE
+        final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        final int multiplicationLimit = limit / 10;
+        int result = 0;
+        for (; i < end; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                throw numberFormatException(value, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(value, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    static long parseLong(final String value, final int start, final int end) {
+        int i = start;
+        final char first = value.charAt(i);
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw numberFormatException(value, start, end);
+        }
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                throw numberFormatException(value, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(value, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parse a double of the {@code xs:double} lexical form.  Decimal values of up to 19 significant digits whose value
+     * is exactly computable with a single multiplication or division by a power of ten (the common case) are parsed in
+     * place; other decimal values fall back to {@link Double#parseDouble(String)}.  {@code INF}, {@code -INF} and
+     * {@code NaN} are accepted, while the other forms {@link Double#parseDouble(String)} would accept, such as
+     * {@code 1.5f}, {@code Infinity} or hexadecimal values, are rejected.
+     */
+    static double parseDouble(final String value, final int start, final int end) {
+        int i = start;
+        final char first = value.charAt(i);
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw numberFormatException(value, start, end);
+        }
+        if (end - i == 3) {
+            if (value.regionMatches(i, "INF", 0, 3)) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            } else if (i == start && value.regionMatches(i, "NaN", 0, 3)) {
+                return Double.NaN;
+            }
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean any = false;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 19) {
+                        return fallback(value, start, end);
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (c == '.' && ! fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && any) {
+                break;
+            } else {
+                return fallback(value, start, end);
+            }
+        }
+        if (! any) {
+            return fallback(value, start, end);
+        }
+        if (i < end) {
+            // Exponent
+            i++;
+            if (i == end) {
+                throw numberFormatException(value, start, end);
+            }
+            final char sign = value.charAt(i);
+            final boolean negativeExponent = sign == '-';
+            if (negativeExponent || sign == '+') {
+                i++;
+            }
+            if (i == end || end - i > 4) {
+                return fallback(value, start, end);
+            }
+            int explicit = 0;
+            for (; i < end; i++) {
+                final int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw numberFormatException(value, start, end);
+                }
+                explicit = explicit * 10 + digit;
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        final double result;
+        if (mantissa == 0) {
+            result = 0.0;
+        } else if (mantissa < 1L << 53 && exponent >= -22 && exponent <= 22) {
+            result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return fallback(value, start, end);
+        }
+        return negative ? -result : result;
+    }
+
+    private static double fallback(final String value, final int start, final int end) {
+        if (! isDecimal(value, start, end)) {
+            throw numberFormatException(value, start, end);
+        }
+        return Double.parseDouble(value.substring(start, end));
+    }
+
+    // Whether the token is a decimal xs:double, i.e. (+|-)?(digits(.digits?)?|.digits)((e|E)(+|-)?digits)?
+    private static boolean isDecimal(final String value, final int start, final int end) {
+        int i = start;
+        if (value.charAt(i) == '-' || value.charAt(i) == '+') {
+            i++;
+        }
+        int digits = 0;
+        for (; i < end && isDigit(value.charAt(i)); i++) {
+            digits++;
+        }
+        if (i < end && value.charAt(i) == '.') {
+            for (i++; i < end && isDigit(value.charAt(i)); i++) {
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            final int exponentStart = i;
+            while (i < end && isDigit(value.charAt(i))) {
+                i++;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean parseBoolean(final String value, final int start, final int end) {
+        final int length = end - start;
+        if (length == 4 && value.regionMatches(start, "true", 0, 4) || length == 1 && value.charAt(start) == '1') {
+            return true;
+        } else if (length == 5 && value.regionMatches(start, "false", 0, 5) || length == 1 && value.charAt(start) == '0') {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid boolean value \"" + value.substring(start, end) + "\"");
+    }
+
+    private static NumberFormatException numberFormatException(final String value, final int start, final int end) {
+        return new NumberFormatException("For input string: \"" + value.substring(start, end) + "\"");
+    }
+}
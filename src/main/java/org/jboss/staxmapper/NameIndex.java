@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+/**
+ * An index of values by namespace URI and then local name, which can be queried with the strings reported by a
+ * stream reader without constructing a {@link QName}.  Keys are interned on registration, so that lookups with the
+ * interned names reported by most StAX implementations are resolved by identity.
+ *
+ * @param <V> the value type
+ */
+final class NameIndex<V> {
+    private final ConcurrentMap<String, ConcurrentMap<String, V>> namespaces = new ConcurrentHashMap<>();
+
+    /**
+     * Get the value registered for the given name.
+     *
+     * @param namespaceURI the namespace URI, or {@code null} for no namespace
+     * @param localName the local name
+     * @return the value, or {@code null} if there is none
+     */
+    V get(final String namespaceURI, final String localName) {
+        final ConcurrentMap<String, V> localNames = namespaces.get(namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI);
+        return localNames == null ? null : localNames.get(localName);
+    }
+
+    /**
+     * Register a value for the given name, unless one is already registered.
+     *
+     * @param name the name
+     * @param value the value
+     * @return the previously registered value, or {@code null} if the given value was registered
+     */
+    V putIfAbsent(final QName name, final V value) {
+        return namespaces.computeIfAbsent(name.getNamespaceURI().intern(), key -> new ConcurrentHashMap<>()).putIfAbsent(name.getLocalPart().intern(), value);
+    }
+
+    /**
+     * Get the value registered for the given name, registering one if there is none.
+     *
+     * @param name the name
+     * @param function the function creating the value to register
+     * @return the registered value
+     */
+    V computeIfAbsent(final QName name, final Function<? super QName, ? extends V> function) {
+        return namespaces.computeIfAbsent(name.getNamespaceURI().intern(), key -> new ConcurrentHashMap<>()).computeIfAbsent(name.getLocalPart().intern(), key -> function.apply(name));
+    }
+
+    /**
+     * Remove the value registered for the given name.
+     *
+     * @param name the name
+     * @return the removed value, or {@code null} if there was none
+     */
+    V remove(final QName name) {
+        final ConcurrentMap<String, V> localNames = namespaces.get(name.getNamespaceURI());
+        return localNames == null ? null : localNames.remove(name.getLocalPart());
+    }
+}
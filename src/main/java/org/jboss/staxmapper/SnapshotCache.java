@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.xml.namespace.QName;
+
+/**
+ * The snapshots captured while parsing a document, keyed by element name and content digest.  Snapshots are looked up
+ * in, and merged into, the {@link Store} of the mapper, which is shared by all documents it parses.
+ */
+final class SnapshotCache {
+    private final Store store;
+    private final long generation;
+    private final Map<Key, Consumer<Object>> current = new ConcurrentHashMap<>();
+
+    /**
+     * Create the snapshots of a parse which neither uses nor contributes to those of other parses.
+     */
+    SnapshotCache() {
+        this(null);
+    }
+
+    SnapshotCache(final Store store) {
+        this.store = store;
+        this.generation = store == null ? 0 : store.generations.incrementAndGet();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Consumer<Object> get(final QName name, final byte[] digest) {
+        final Key key = new Key(name, digest);
+        Consumer<Object> snapshot = current.get(key);
+        if (snapshot == null && store != null) {
+            snapshot = store.get(key);
+            if (snapshot != null) {
+                current.putIfAbsent(key, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    void put(final QName name, final byte[] digest, final Consumer<Object> snapshot) {
+        current.put(new Key(name, digest), snapshot);
+    }
+
+    /**
+     * Merge the snapshots used or captured by this parse into the store, once the document was parsed successfully.
+     */
+    void commit() {
+        if (store != null) {
+            store.merge(current, generation);
+        }
+    }
+
+    /**
+     * The snapshots of all documents parsed by a mapper.  Snapshots are keyed by content, so those of different
+     * documents do not replace each other.  Once the store is full, the snapshots least recently used by a parse are
+     * evicted.
+     */
+    static final class Store {
+        // Enough for the subsystems of several configuration files
+        static final int MAX_SNAPSHOTS = 1024;
+
+        private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+        private final AtomicLong generations = new AtomicLong();
+
+        Consumer<Object> get(final Key key) {
+            final Entry entry = entries.get(key);
+            return entry == null ? null : entry.snapshot;
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        void merge(final Map<Key, Consumer<Object>> snapshots, final long generation) {
+            for (Map.Entry<Key, Consumer<Object>> snapshot : snapshots.entrySet()) {
+                entries.merge(snapshot.getKey(), new Entry(snapshot.getValue(), generation), (existing, added) -> existing.generation > added.generation ? existing : added);
+            }
+            if (entries.size() > MAX_SNAPSHOTS) {
+                evict();
+            }
+        }
+
+        private synchronized void evict() {
+            final int excess = entries.size() - MAX_SNAPSHOTS;
+            if (excess > 0) {
+                final List<Map.Entry<Key, Entry>> oldest = new ArrayList<>(entries.entrySet());
+                oldest.sort(Comparator.comparingLong(entry -> entry.getValue().generation));
+                for (Map.Entry<Key, Entry> entry : oldest.subList(0, Math.min(excess, oldest.size()))) {
+                    entries.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        private static final class Entry {
+            final Consumer<Object> snapshot;
+            // The parse which last used the snapshot
+            final long generation;
+
+            Entry(final Consumer<Object> snapshot, final long generation) {
+                this.snapshot = snapshot;
+                this.generation = generation;
+            }
+        }
+    }
+
+    static final class Key {
+        private final QName name;
+        private final byte[] digest;
+        private final int hashCode;
+
+        Key(final QName name, final byte[] digest) {
+            this.name = name;
+            this.digest = digest;
+            hashCode = name.hashCode() * 31 + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (! (obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return hashCode == other.hashCode && name.equals(other.name) && Arrays.equals(digest, other.digest);
+        }
+    }
+}
@@ -0,0 +1,973 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * An XML stream writer which encodes UTF-8 directly into an {@link OutputStream} or {@link WritableByteChannel},
+ * nicely formatting the XML for configuration files in the same way as {@link FormattingXMLStreamWriter}.  Namespaces
+ * are not repaired: the namespace of an element or attribute must be bound to a prefix beforehand.  The encoding of
+ * repeated element and attribute names is kept by each writer, including across the documents of a session.
+ * <p>
+ * Output is buffered; it is written to the target on {@link #flush()} and {@link #close()}, neither of which closes the
+ * target.
+ */
+public final class UTF8XMLStreamWriter implements XMLExtendedStreamWriter, XMLStreamConstants {
+    private static final String NO_NAMESPACE = new String();
+    private static final int INDENT = 4;
+    private static final int BUFFER_SIZE = 8192;
+    // Limits the names kept encoded by each writer
+    private static final int MAX_ENCODED_NAMES = 512;
+    // Room for the longest encoding of a single character: an escape such as "&quot;" or a 4 byte sequence
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] WHITESPACE;
+    private static final byte[][] TEXT_ESCAPES = new byte['>' + 1][];
+    private static final byte[][] ATTRIBUTE_ESCAPES = new byte['>' + 1][];
+    private static final byte[][] NO_ESCAPES = new byte['>' + 1][];
+    private static final byte[] COMMENT_START = ascii("<!--");
+    private static final byte[] COMMENT_LINE = ascii("  ~ ");
+    private static final byte[] COMMENT_END = ascii("-->");
+    private static final byte[] CDATA_START = ascii("<![CDATA[");
+    private static final byte[] CDATA_END = ascii("]]>");
+    private static final byte[] DECLARATION_START = ascii("<?xml version=\"");
+    private static final byte[] DECLARATION_ENCODING = ascii("\" encoding=\"");
+    private static final byte[] DECLARATION_END = ascii("\"?>");
+
+    static {
+        final byte[] whitespace = new byte[1 + 16 * INDENT];
+        whitespace[0] = '\n';
+        Arrays.fill(whitespace, 1, whitespace.length, (byte) ' ');
+        WHITESPACE = whitespace;
+        TEXT_ESCAPES['&'] = ATTRIBUTE_ESCAPES['&'] = ascii("&amp;");
+        TEXT_ESCAPES['<'] = ATTRIBUTE_ESCAPES['<'] = ascii("&lt;");
+        TEXT_ESCAPES['>'] = ATTRIBUTE_ESCAPES['>'] = ascii("&gt;");
+        ATTRIBUTE_ESCAPES['"'] = ascii("&quot;");
+    }
+
+    private static final int TAG_NONE = 0;
+    // A start tag which becomes an empty element tag if the element ends right away
+    private static final int TAG_START = 1;
+    // A start tag which is kept even if the element ends right away
+    private static final int TAG_START_KEPT = 2;
+    private static final int TAG_EMPTY = 3;
+
+    private OutputStream out;
+    private WritableByteChannel channel;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    // Bytes written to the target so far
+    private long written;
+    // Captured output of a fragment, while capturing; captureStart is the start of the fragment in the buffer
+    private byte[] capture;
+    private int captureLength;
+    private int captureStart;
+    private int captureLevel;
+    private int captureDepth;
+    // Shared until a deeper level than it covers is reached; never modified
+    private byte[] whitespace = WHITESPACE;
+    // The encoding of the element and attribute names written by this writer, kept across documents
+    private final Map<String, byte[]> encodedNames = new HashMap<>();
+    // Open elements, with the namespace binding count and unspecified element namespace on entry
+    private String[] elementPrefixes = new String[16];
+    private String[] elementLocalNames = new String[16];
+    private int[] bindingMarks = new int[16];
+    private String[] unspecifiedNamespaces = new String[17];
+    private int depth;
+    // Namespace bindings in scope, as prefix and URI pairs
+    private String[] bindings = new String[32];
+    private int bindingCount;
+    private int emptyBindingMark;
+    private NamespaceContext rootContext;
+    private int tag = TAG_NONE;
+    private int level;
+    private int state = START_DOCUMENT;
+    private boolean indentEndElement = false;
+
+    /**
+     * Construct a new instance writing to an output stream.
+     *
+     * @param out the output stream
+     */
+    public UTF8XMLStreamWriter(final OutputStream out) {
+        this(out, null);
+    }
+
+    /**
+     * Construct a new instance writing to a channel.
+     *
+     * @param channel the channel
+     */
+    public UTF8XMLStreamWriter(final WritableByteChannel channel) {
+        this(null, channel);
+    }
+
+    private UTF8XMLStreamWriter(final OutputStream out, final WritableByteChannel channel) {
+        if (out == null && channel == null) {
+            throw new IllegalArgumentException("target is null");
+        }
+        this.out = out;
+        this.channel = channel;
+        unspecifiedNamespaces[0] = NO_NAMESPACE;
+    }
+
+    /**
+     * Reset this writer to write a new document to an output stream, keeping its buffers.
+     *
+     * @param out the output stream
+     */
+    void reset(final OutputStream out) {
+        this.out = out;
+        channel = null;
+        position = 0;
+        written = 0;
+        capture = null;
+        Arrays.fill(elementPrefixes, 0, depth, null);
+        Arrays.fill(elementLocalNames, 0, depth, null);
+        Arrays.fill(unspecifiedNamespaces, 1, depth + 1, null);
+        unspecifiedNamespaces[0] = NO_NAMESPACE;
+        depth = 0;
+        Arrays.fill(bindings, 0, bindingCount, null);
+        bindingCount = 0;
+        rootContext = null;
+        tag = TAG_NONE;
+        level = 0;
+        state = START_DOCUMENT;
+        indentEndElement = false;
+    }
+
+    private static byte[] ascii(final String string) {
+        return string.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // output
+
+    private void drain() throws XMLStreamException {
+        final int length = position;
+        position = 0;
+        if (capture != null) {
+            capture(buffer, captureStart, length);
+            captureStart = 0;
+        }
+        send(buffer, length);
+    }
+
+    private void send(final byte[] bytes, final int length) throws XMLStreamException {
+        written += length;
+        try {
+            if (out != null) {
+                out.write(bytes, 0, length);
+            } else {
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private void write(final byte b) throws XMLStreamException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = b;
+    }
+
+    private void write(final byte[] bytes, final int length) throws XMLStreamException {
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                // Too large to be worth buffering
+                if (capture != null) {
+                    capture(bytes, 0, length);
+                }
+                send(bytes, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, length);
+        position += length;
+    }
+
+    private void write(final byte[] bytes) throws XMLStreamException {
+        write(bytes, bytes.length);
+    }
+
+    private void writeName(final String prefix, final String localName) throws XMLStreamException {
+        if (prefix != null && ! prefix.isEmpty()) {
+            writeName(prefix);
+            write((byte) ':');
+        }
+        writeName(localName);
+    }
+
+    private void writeName(final String name) throws XMLStreamException {
+        byte[] bytes = encodedNames.get(name);
+        if (bytes == null) {
+            if (encodedNames.size() == MAX_ENCODED_NAMES || hasSurrogate(name)) {
+                // Encode it in place, which also reports unpaired surrogates
+                write(name, NO_ESCAPES);
+                return;
+            }
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+            encodedNames.put(name, bytes);
+        }
+        write(bytes);
+    }
+
+    private static boolean hasSurrogate(final String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isSurrogate(name.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encode text, replacing the characters which have an entry in the given escape table.
+     */
+    private void write(final CharSequence text, final int start, final int end, final byte[][] escapes) throws XMLStreamException {
+        final byte[] buffer = this.buffer;
+        final int limit = buffer.length - MAX_CHAR_BYTES;
+        int position = this.position;
+        for (int i = start; i < end; i++) {
+            if (position > limit) {
+                this.position = position;
+                drain();
+                position = 0;
+            }
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                final byte[] escape;
+                if (c <= '>' && (escape = escapes[c]) != null) {
+                    System.arraycopy(escape, 0, buffer, position, escape.length);
+                    position += escape.length;
+                } else {
+                    buffer[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (! Character.isSurrogate(c)) {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                this.position = position;
+                throw new XMLStreamException("Unpaired surrogate at index " + i);
+            }
+        }
+        this.position = position;
+    }
+
+    private void write(final String text, final byte[][] escapes) throws XMLStreamException {
+        write(text, 0, text.length(), escapes);
+    }
+
+    /**
+     * Get the number of bytes produced so far, including those still buffered.
+     */
+    long getByteCount() {
+        return written + position;
+    }
+
+    // fragments
+
+    private void capture(final byte[] bytes, final int from, final int to) {
+        final int length = to - from;
+        if (captureLength + length > capture.length) {
+            capture = Arrays.copyOf(capture, Math.max(captureLength + length, capture.length << 1));
+        }
+        System.arraycopy(bytes, from, capture, captureLength, length);
+        captureLength += length;
+    }
+
+    boolean isCapturing() {
+        return capture != null;
+    }
+
+    /**
+     * Start capturing the output of complete elements, for {@link #endCapture(long)}.  A pending start tag is left
+     * open, so that it still becomes an empty element tag if nothing is captured.
+     */
+    void beginCapture() {
+        capture = new byte[256];
+        captureLength = 0;
+        captureStart = position;
+        captureLevel = level;
+        captureDepth = depth;
+    }
+
+    /**
+     * Stop capturing output.
+     *
+     * @param version the version of the captured fragment
+     * @return the fragment, or {@code null} if the output captured was not a sequence of complete elements
+     */
+    Fragment endCapture(final long version) throws XMLStreamException {
+        if (captureDepth >= 0 && ! isCaptureEmpty()) {
+            // Complete an empty element written last by the fragment
+            closeTag();
+        }
+        capture(buffer, captureStart, position);
+        final byte[] bytes = Arrays.copyOf(capture, captureLength);
+        capture = null;
+        if (depth != captureDepth || level != captureLevel) {
+            return null;
+        }
+        return new Fragment(version, level, unspecifiedNamespaces[depth], bytes, state, indentEndElement);
+    }
+
+    /**
+     * Determine whether a fragment was captured in the same context as the current one.
+     */
+    boolean fits(final Fragment fragment) {
+        return fragment.level == level && fragment.unspecifiedNamespace.equals(unspecifiedNamespaces[depth]);
+    }
+
+    void replay(final Fragment fragment) throws XMLStreamException {
+        if (fragment.bytes.length == 0) {
+            // Leave the pending start tag open, as the writer of the fragment did
+            return;
+        }
+        closeTag();
+        write(fragment.bytes);
+        state = fragment.state;
+        indentEndElement = fragment.indentEndElement;
+    }
+
+    /**
+     * The captured output of a sequence of complete elements, along with the state needed to continue after it.
+     */
+    static final class Fragment {
+        final long version;
+        final int level;
+        final String unspecifiedNamespace;
+        final byte[] bytes;
+        final int state;
+        final boolean indentEndElement;
+
+        Fragment(final long version, final int level, final String unspecifiedNamespace, final byte[] bytes, final int state, final boolean indentEndElement) {
+            this.version = version;
+            this.level = level;
+            this.unspecifiedNamespace = unspecifiedNamespace;
+            this.bytes = bytes;
+            this.state = state;
+            this.indentEndElement = indentEndElement;
+        }
+    }
+
+    // formatting
+
+    private void nl() throws XMLStreamException {
+        write(whitespace, 1);
+    }
+
+    private void nlIndent() throws XMLStreamException {
+        final int length = indentLength();
+        write(whitespace(length), length);
+    }
+
+    /**
+     * Get the length of a newline followed by the indentation of the current level.
+     */
+    private int indentLength() {
+        return 1 + Math.max(level, 0) * INDENT;
+    }
+
+    /**
+     * Get a newline followed by spaces, with at least the given total length.
+     */
+    private byte[] whitespace(final int length) {
+        byte[] whitespace = this.whitespace;
+        if (length > whitespace.length) {
+            whitespace = new byte[Math.max(length, whitespace.length << 1)];
+            whitespace[0] = '\n';
+            Arrays.fill(whitespace, 1, whitespace.length, (byte) ' ');
+            this.whitespace = whitespace;
+        }
+        return whitespace;
+    }
+
+    /**
+     * Determine whether nothing has been written since the capture began.
+     */
+    private boolean isCaptureEmpty() {
+        return captureLength == 0 && position == captureStart;
+    }
+
+    private void closeTag() throws XMLStreamException {
+        if (tag == TAG_NONE) {
+            return;
+        }
+        // The start tag pending when the capture began is closed before the captured output
+        final boolean enclosing = capture != null && isCaptureEmpty();
+        if (enclosing && buffer.length - position < 2) {
+            drain();
+        }
+        switch (tag) {
+            case TAG_EMPTY: {
+                write((byte) '/');
+                bindingCount = emptyBindingMark;
+                break;
+            }
+            default: {
+                break;
+            }
+        }
+        write((byte) '>');
+        tag = TAG_NONE;
+        if (enclosing) {
+            captureStart = position;
+        }
+    }
+
+    private void requireTag() throws XMLStreamException {
+        if (tag == TAG_NONE) {
+            throw new XMLStreamException("Attribute not associated with any element");
+        }
+        if (capture != null && isCaptureEmpty()) {
+            // Written to the element enclosing the capture, so the captured output is not a fragment
+            captureDepth = -1;
+        }
+    }
+
+    // namespaces
+
+    private void bind(final String prefix, final String namespaceURI) {
+        if (bindingCount == bindings.length) {
+            bindings = Arrays.copyOf(bindings, bindingCount << 1);
+        }
+        bindings[bindingCount++] = prefix;
+        bindings[bindingCount++] = namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI;
+    }
+
+    private String boundNamespaceURI(final String prefix) {
+        final String[] bindings = this.bindings;
+        for (int i = bindingCount - 2; i >= 0; i -= 2) {
+            if (bindings[i].equals(prefix)) {
+                return bindings[i + 1];
+            }
+        }
+        return rootContext == null ? null : rootContext.getNamespaceURI(prefix);
+    }
+
+    private String boundPrefix(final String namespaceURI) {
+        final String[] bindings = this.bindings;
+        for (int i = bindingCount - 2; i >= 0; i -= 2) {
+            if (bindings[i + 1].equals(namespaceURI)) {
+                final String prefix = bindings[i];
+                // Make sure the prefix is not bound to another namespace further in
+                if (bindings[i + 1].equals(boundNamespaceURI(prefix))) {
+                    return prefix;
+                }
+            }
+        }
+        return rootContext == null ? null : rootContext.getPrefix(namespaceURI);
+    }
+
+    private String requirePrefix(final String namespaceURI) throws XMLStreamException {
+        final String prefix = boundPrefix(namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI);
+        if (prefix == null) {
+            if (namespaceURI == null || namespaceURI.isEmpty()) {
+                return XMLConstants.DEFAULT_NS_PREFIX;
+            }
+            throw new XMLStreamException("Namespace '" + namespaceURI + "' is not bound to a prefix");
+        }
+        return prefix;
+    }
+
+    // elements
+
+    @Override
+    public void setUnspecifiedElementNamespace(final String namespace) {
+        unspecifiedNamespaces[depth] = namespace == null ? NO_NAMESPACE : namespace;
+    }
+
+    private void startElement(final String prefix, final String localName) throws XMLStreamException {
+        // If this is a nested element close the outer start tag
+        closeTag();
+        nlIndent();
+        write((byte) '<');
+        writeName(prefix, localName);
+        final int depth = this.depth;
+        if (depth == elementLocalNames.length) {
+            elementPrefixes = Arrays.copyOf(elementPrefixes, depth << 1);
+            elementLocalNames = Arrays.copyOf(elementLocalNames, depth << 1);
+            bindingMarks = Arrays.copyOf(bindingMarks, depth << 1);
+            unspecifiedNamespaces = Arrays.copyOf(unspecifiedNamespaces, (depth << 1) + 1);
+        }
+        elementPrefixes[depth] = prefix;
+        elementLocalNames[depth] = localName;
+        bindingMarks[depth] = bindingCount;
+        unspecifiedNamespaces[depth + 1] = unspecifiedNamespaces[depth];
+        this.depth = depth + 1;
+        tag = TAG_START;
+        level++;
+        state = START_ELEMENT;
+        indentEndElement = false;
+    }
+
+    private void emptyElement(final String prefix, final String localName) throws XMLStreamException {
+        closeTag();
+        nlIndent();
+        write((byte) '<');
+        writeName(prefix, localName);
+        emptyBindingMark = bindingCount;
+        tag = TAG_EMPTY;
+        state = END_ELEMENT;
+    }
+
+    private void endTag() throws XMLStreamException {
+        if (depth == 0) {
+            throw new XMLStreamException("No element to end");
+        }
+        final int depth = --this.depth;
+        write((byte) '<');
+        write((byte) '/');
+        writeName(elementPrefixes[depth], elementLocalNames[depth]);
+        write((byte) '>');
+        popElement(depth);
+    }
+
+    private void popElement(final int depth) {
+        elementPrefixes[depth] = null;
+        elementLocalNames[depth] = null;
+        bindingCount = bindingMarks[depth];
+    }
+
+    @Override
+    public void writeStartElement(final String localName) throws XMLStreamException {
+        final String namespace = unspecifiedNamespaces[depth];
+        if (namespace != NO_NAMESPACE) {
+            writeStartElement(namespace, localName);
+            return;
+        }
+        startElement(null, localName);
+    }
+
+    @Override
+    public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        startElement(requirePrefix(namespaceURI), localName);
+    }
+
+    @Override
+    public void writeStartElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+        startElement(prefix, localName);
+    }
+
+    @Override
+    public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        emptyElement(requirePrefix(namespaceURI), localName);
+    }
+
+    @Override
+    public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+        emptyElement(prefix, localName);
+    }
+
+    @Override
+    public void writeEmptyElement(final String localName) throws XMLStreamException {
+        final String namespace = unspecifiedNamespaces[depth];
+        if (namespace != NO_NAMESPACE) {
+            writeEmptyElement(namespace, localName);
+            return;
+        }
+        emptyElement(null, localName);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        level--;
+        if (state != START_ELEMENT) {
+            closeTag();
+            if (state != CHARACTERS || indentEndElement) {
+                nlIndent();
+                indentEndElement = false;
+            }
+            endTag();
+        } else if (tag == TAG_START) {
+            // Change the start tag to an empty element tag
+            write((byte) '/');
+            write((byte) '>');
+            tag = TAG_NONE;
+            popElement(--depth);
+        } else {
+            closeTag();
+            endTag();
+        }
+        state = END_ELEMENT;
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        closeTag();
+        while (depth > 0) {
+            endTag();
+        }
+        state = END_DOCUMENT;
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        flush();
+        state = END_DOCUMENT;
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        drain();
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+    }
+
+    // attributes
+
+    private void startAttribute(final String prefix, final String localName) throws XMLStreamException {
+        requireTag();
+        write((byte) ' ');
+        writeName(prefix, localName);
+        write((byte) '=');
+        write((byte) '"');
+    }
+
+    private String attributePrefix(final String namespaceURI) throws XMLStreamException {
+        return namespaceURI == null || namespaceURI.isEmpty() ? null : requirePrefix(namespaceURI);
+    }
+
+    private void writeValue(final String value) throws XMLStreamException {
+        write(value, ATTRIBUTE_ESCAPES);
+        write((byte) '"');
+    }
+
+    private void writeValue(final String[] values) throws XMLStreamException {
+        for (int i = 0, valuesLength = values.length; i < valuesLength; i++) {
+            final String s = values[i];
+            if (s != null) {
+                if (i > 0) {
+                    write((byte) ' ');
+                }
+                write(s, ATTRIBUTE_ESCAPES);
+            }
+        }
+        write((byte) '"');
+    }
+
+    private void writeValue(final Iterable<String> values) throws XMLStreamException {
+        final Iterator<String> iterator = values.iterator();
+        while (iterator.hasNext()) {
+            final String s = iterator.next();
+            if (s != null) {
+                write(s, ATTRIBUTE_ESCAPES);
+                if (iterator.hasNext()) {
+                    write((byte) ' ');
+                }
+            }
+        }
+        write((byte) '"');
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+        startAttribute(null, localName);
+        writeValue(value);
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+        startAttribute(prefix, localName);
+        writeValue(value);
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+        startAttribute(attributePrefix(namespaceURI), localName);
+        writeValue(value);
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String[] values) throws XMLStreamException {
+        startAttribute(null, localName);
+        writeValue(values);
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String[] values) throws XMLStreamException {
+        startAttribute(prefix, localName);
+        writeValue(values);
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String[] values) throws XMLStreamException {
+        startAttribute(attributePrefix(namespaceURI), localName);
+        writeValue(values);
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final Iterable<String> values) throws XMLStreamException {
+        startAttribute(null, localName);
+        writeValue(values);
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final Iterable<String> values) throws XMLStreamException {
+        startAttribute(prefix, localName);
+        writeValue(values);
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final Iterable<String> values) throws XMLStreamException {
+        startAttribute(attributePrefix(namespaceURI), localName);
+        writeValue(values);
+    }
+
+    @Override
+    public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+        if (prefix == null || prefix.isEmpty() || prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+            writeDefaultNamespace(namespaceURI);
+            return;
+        }
+        startAttribute(XMLConstants.XMLNS_ATTRIBUTE, prefix);
+        writeValue(namespaceURI);
+        bind(prefix, namespaceURI);
+    }
+
+    @Override
+    public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+        startAttribute(null, XMLConstants.XMLNS_ATTRIBUTE);
+        writeValue(namespaceURI);
+        bind(XMLConstants.DEFAULT_NS_PREFIX, namespaceURI);
+    }
+
+    // other content
+
+    @Override
+    public void writeComment(final String data) throws XMLStreamException {
+        closeTag();
+        nl();
+        nlIndent();
+        final byte[][] escapes = NO_ESCAPES;
+        write(COMMENT_START);
+        int n = data.indexOf('\n');
+        if (n == -1) {
+            write((byte) ' ');
+            write(data, escapes);
+            write((byte) ' ');
+        } else {
+            final int length = indentLength();
+            final byte[] whitespace = whitespace(length);
+            int i = 0;
+            for (;;) {
+                write(whitespace, length);
+                write(COMMENT_LINE);
+                write(data, i, n == -1 ? data.length() : n, escapes);
+                if (n == -1) {
+                    break;
+                }
+                i = n + 1;
+                n = data.indexOf('\n', i);
+            }
+            write(whitespace, length);
+            write((byte) ' ');
+            write((byte) ' ');
+        }
+        write(COMMENT_END);
+        state = COMMENT;
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target) throws XMLStreamException {
+        writeProcessingInstruction(target, null);
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+        closeTag();
+        nlIndent();
+        write((byte) '<');
+        write((byte) '?');
+        write(target, NO_ESCAPES);
+        if (data != null) {
+            write((byte) ' ');
+            write(data, NO_ESCAPES);
+        }
+        write((byte) '?');
+        write((byte) '>');
+        state = PROCESSING_INSTRUCTION;
+    }
+
+    @Override
+    public void writeCData(final String data) throws XMLStreamException {
+        closeTag();
+        write(CDATA_START);
+        write(data, NO_ESCAPES);
+        write(CDATA_END);
+        state = CDATA;
+    }
+
+    @Override
+    public void writeDTD(final String dtd) throws XMLStreamException {
+        closeTag();
+        nlIndent();
+        write(dtd, NO_ESCAPES);
+        state = DTD;
+    }
+
+    @Override
+    public void writeEntityRef(final String name) throws XMLStreamException {
+        closeTag();
+        write((byte) '&');
+        write(name, NO_ESCAPES);
+        write((byte) ';');
+        state = ENTITY_REFERENCE;
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        writeStartDocument("UTF-8", "1.0");
+    }
+
+    @Override
+    public void writeStartDocument(final String version) throws XMLStreamException {
+        writeStartDocument("UTF-8", version);
+    }
+
+    @Override
+    public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+        if (! StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding) && ! "UTF8".equalsIgnoreCase(encoding)) {
+            throw new XMLStreamException("Unsupported encoding '" + encoding + "'");
+        }
+        write(DECLARATION_START);
+        write(version, ATTRIBUTE_ESCAPES);
+        write(DECLARATION_ENCODING);
+        write(encoding, ATTRIBUTE_ESCAPES);
+        write(DECLARATION_END);
+        nl();
+        state = START_DOCUMENT;
+    }
+
+    @Override
+    public void writeCharacters(final String text) throws XMLStreamException {
+        closeTag();
+        if (state != CHARACTERS) {
+            nlIndent();
+        }
+        int i = 0;
+        int n;
+        while ((n = text.indexOf('\n', i)) != -1) {
+            write(text, i, n, TEXT_ESCAPES);
+            nlIndent();
+            i = n + 1;
+        }
+        write(text, i, text.length(), TEXT_ESCAPES);
+        state = CHARACTERS;
+        indentEndElement = true;
+    }
+
+    @Override
+    public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+        closeTag();
+        write(CharBuffer.wrap(text), start, start + len, TEXT_ESCAPES);
+        state = CHARACTERS;
+    }
+
+    @Override
+    public String getPrefix(final String uri) throws XMLStreamException {
+        return boundPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(final String prefix, final String uri) throws XMLStreamException {
+        if (tag == TAG_EMPTY) {
+            closeTag();
+        }
+        bind(prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(final String uri) throws XMLStreamException {
+        if (tag == TAG_START) {
+            tag = TAG_START_KEPT;
+        }
+        setPrefix(XMLConstants.DEFAULT_NS_PREFIX, uri);
+    }
+
+    @Override
+    public void setNamespaceContext(final NamespaceContext context) throws XMLStreamException {
+        rootContext = context;
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(final String prefix) {
+                return boundNamespaceURI(prefix);
+            }
+
+            @Override
+            public String getPrefix(final String namespaceURI) {
+                return boundPrefix(namespaceURI);
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(final String namespaceURI) {
+                final String prefix = boundPrefix(namespaceURI);
+                return prefix == null ? Collections.<String>emptyIterator() : Collections.singleton(prefix).iterator();
+            }
+        };
+    }
+
+    @Override
+    public Object getProperty(final String name) throws IllegalArgumentException {
+        if (name.equals("javax.xml.stream.isRepairingNamespaces")) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Property " + name + " is not supported");
+    }
+}
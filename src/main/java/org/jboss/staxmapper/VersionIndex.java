@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.staxmapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The registered versions of a family of namespace URIs which differ only in a trailing version, such as
+ * {@code urn:jboss:domain:1.0} and {@code urn:jboss:domain:20.0}, sorted by version.  A namespace URI of the family
+ * which is not registered resolves to the value of the nearest lower registered version.
+ *
+ * @param <V> the value type
+ */
+final class VersionIndex<V> {
+    // Limits the resolutions retained for unregistered namespace URIs, which come from documents
+    private static final int MAX_RESOLVED = 64;
+
+    // Replaced as a whole on registration, so that resolutions are only ever cached against the entries they used
+    private volatile State<V> state = new State<>(newEntries(0));
+
+    /**
+     * Get the length of the prefix of the given namespace URI which precedes its trailing version.
+     *
+     * @param namespaceURI the namespace URI
+     * @return the prefix length, or -1 if the URI does not end with a version
+     */
+    static int prefixLength(final String namespaceURI) {
+        final int index = namespaceURI.lastIndexOf(':') + 1;
+        return index > 0 && IntVersion.find(namespaceURI) != null ? index : -1;
+    }
+
+    /**
+     * Register a value for a version.
+     *
+     * @param version the version
+     * @param namespaceURI the namespace URI of the version
+     * @param value the value
+     */
+    synchronized void add(final IntVersion version, final String namespaceURI, final V value) {
+        final Entry<V>[] entries = state.entries;
+        int index = search(entries, version);
+        if (index >= 0) {
+            throw new IllegalArgumentException("Version " + version + " of " + namespaceURI + " already registered");
+        }
+        index = -index - 1;
+        final Entry<V>[] copy = newEntries(entries.length + 1);
+        System.arraycopy(entries, 0, copy, 0, index);
+        copy[index] = new Entry<>(version, namespaceURI, value);
+        System.arraycopy(entries, index, copy, index + 1, entries.length - index);
+        state = new State<>(copy);
+    }
+
+    /**
+     * Remove the version registered for the given namespace URI.
+     *
+     * @param namespaceURI the namespace URI
+     */
+    synchronized void remove(final String namespaceURI) {
+        final Entry<V>[] entries = state.entries;
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].namespaceURI.equals(namespaceURI)) {
+                final Entry<V>[] copy = newEntries(entries.length - 1);
+                System.arraycopy(entries, 0, copy, 0, i);
+                System.arraycopy(entries, i + 1, copy, i, copy.length - i);
+                state = new State<>(copy);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resolve a namespace URI of this family to the value of the highest registered version which is not greater
+     * than its own.
+     *
+     * @param namespaceURI the namespace URI
+     * @return the value, or {@code null} if the URI has no version or every registered version is greater
+     */
+    V resolve(final String namespaceURI) {
+        final State<V> state = this.state;
+        V value = state.resolved.get(namespaceURI);
+        if (value == null) {
+            final IntVersion version = IntVersion.find(namespaceURI);
+            if (version == null) {
+                return null;
+            }
+            final Entry<V>[] entries = state.entries;
+            final int index = search(entries, version);
+            final int floor = index >= 0 ? index : -index - 2;
+            if (floor < 0) {
+                return null;
+            }
+            value = entries[floor].value;
+            if (state.resolved.size() < MAX_RESOLVED) {
+                state.resolved.putIfAbsent(namespaceURI, value);
+            }
+        }
+        return value;
+    }
+
+    // private members
+
+    private static <V> int search(final Entry<V>[] entries, final IntVersion version) {
+        int low = 0;
+        int high = entries.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int result = entries[mid].version.compareTo(version);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V>[] newEntries(final int length) {
+        return (Entry<V>[]) new Entry<?>[length];
+    }
+
+    private static final class State<V> {
+        final Entry<V>[] entries;
+        final ConcurrentMap<String, V> resolved = new ConcurrentHashMap<>();
+
+        State(final Entry<V>[] entries) {
+            this.entries = entries;
+        }
+    }
+
+    private static final class Entry<V> {
+        final IntVersion version;
+        final String namespaceURI;
+        final V value;
+
+        Entry(final IntVersion version, final String namespaceURI, final V value) {
+            this.version = version;
+            this.namespaceURI = namespaceURI;
+            this.value = value;
+        }
+    }
+}
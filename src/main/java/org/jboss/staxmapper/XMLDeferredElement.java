@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * A nested element recorded by {@link XMLExtendedStreamReader#handleAnyLazily()}, whose registered reader only runs
+ * when it is {@linkplain #parse(Object) parsed}.
+ */
+public interface XMLDeferredElement {
+
+    /**
+     * Get the name of the element.
+     *
+     * @return the element name
+     */
+    QName getName();
+
+    /**
+     * Get the location of the start of the element in its document.
+     *
+     * @return the location
+     */
+    Location getLocation();
+
+    /**
+     * Read the recorded element into the given value using its registered reader, as
+     * {@link XMLExtendedStreamReader#handleAny(Object)} would have.  Locations reported while reading are those of the
+     * original document.  The element may be parsed any number of times, from any thread; its reader must tolerate
+     * that, as for {@link XMLMapper#setExecutor(java.util.concurrent.Executor) concurrent reads}.
+     *
+     * @param value the value to pass in
+     * @throws XMLStreamException if an error occurs
+     */
+    void parse(Object value) throws XMLStreamException;
+}
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A listener which is notified after each significant element of a document has been written, e.g. to find the
+ * element writers which take the most time to persist a document.  The significant elements are the root element,
+ * its children, and any other element which declares a namespace, such as the root element of a subsystem.
+ * <p>
+ * Elapsed times and counts of an element include those of its content, so that the elements nested in an element are
+ * reported before it.
+ *
+ * @see XMLMapper#setDeparseListener(XMLDeparseListener)
+ */
+public interface XMLDeparseListener {
+
+    /**
+     * Called after an element has been written.
+     *
+     * @param name the name of the element
+     * @param depth the nesting depth of the element, where the root element has a depth of 1
+     * @param elapsedNanos the time taken to write the element and its content, in nanoseconds
+     * @param elements the number of elements written, including the element itself
+     * @param attributes the number of attributes written, excluding namespace declarations
+     * @param bytes the number of bytes produced, or -1 if the stream writer does not produce bytes itself
+     */
+    void elementWritten(QName name, int depth, long elapsedNanos, int elements, int attributes, long bytes);
+}
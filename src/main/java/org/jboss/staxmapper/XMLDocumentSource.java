@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A document to be parsed by {@link XMLMapper#parseDocumentAsync(Object, XMLDocumentSource)}.
+ */
+public abstract class XMLDocumentSource {
+
+    XMLDocumentSource() {
+    }
+
+    /**
+     * Parse the document.
+     *
+     * @param mapper the mapper which parses it
+     * @param rootObject the root object to send in
+     * @throws XMLStreamException if the document cannot be read or parsed
+     */
+    abstract void parse(XMLMapper mapper, Object rootObject) throws XMLStreamException;
+
+    /**
+     * A document file, parsed as by {@link XMLMapper#parseDocument(Object, Path)}.
+     *
+     * @param path the file
+     * @return the source
+     */
+    public static XMLDocumentSource of(final Path path) {
+        return new XMLDocumentSource() {
+            @Override
+            void parse(final XMLMapper mapper, final Object rootObject) throws XMLStreamException {
+                mapper.parseDocument(rootObject, path);
+            }
+
+            @Override
+            public String toString() {
+                return path.toString();
+            }
+        };
+    }
+
+    /**
+     * A document in bytes, parsed as by {@link XMLMapper#parseDocument(Object, byte[])}.
+     *
+     * @param document the document
+     * @return the source
+     */
+    public static XMLDocumentSource of(final byte[] document) {
+        return of(ByteBuffer.wrap(document));
+    }
+
+    /**
+     * A document in the remaining bytes of a buffer, parsed as by {@link XMLMapper#parseDocument(Object, ByteBuffer)}.
+     * The position of the buffer is not changed.
+     *
+     * @param document the document
+     * @return the source
+     */
+    public static XMLDocumentSource of(final ByteBuffer document) {
+        return new XMLDocumentSource() {
+            @Override
+            void parse(final XMLMapper mapper, final Object rootObject) throws XMLStreamException {
+                mapper.parseDocument(rootObject, document);
+            }
+        };
+    }
+
+    /**
+     * A document read by the given reader, which is positioned at the start of the document.  The reader is closed
+     * once the document is parsed.
+     *
+     * @param reader the reader
+     * @return the source
+     */
+    public static XMLDocumentSource of(final XMLStreamReader reader) {
+        return new XMLDocumentSource() {
+            @Override
+            void parse(final XMLMapper mapper, final Object rootObject) throws XMLStreamException {
+                mapper.parseDocument(rootObject, reader);
+            }
+        };
+    }
+}
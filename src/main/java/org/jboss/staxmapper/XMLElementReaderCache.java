@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.function.Function;
+import javax.xml.namespace.QName;
+
+/**
+ * A cache of the root element readers created from the suppliers registered with
+ * {@link XMLMapper#registerRootElement(QName, java.util.function.Supplier)}.  The cache policy determines how long a
+ * created reader is retained, trading memory against the cost of recreating readers with expensive setup.
+ * Implementations must be safe for concurrent use.
+ *
+ * @see XMLMapper#setRootElementCache(XMLElementReaderCache)
+ */
+public interface XMLElementReaderCache {
+
+    /**
+     * Get the cached reader for the given element name, creating it if necessary.
+     *
+     * @param name the element name
+     * @param factory the function which creates the reader for a name, returning {@code null} if there is none
+     * @return the reader, or {@code null} if there is none
+     */
+    XMLElementReader<?> getReader(QName name, Function<QName, ? extends XMLElementReader<?>> factory);
+
+    /**
+     * Remove any cached reader for the given element name.
+     *
+     * @param name the element name
+     */
+    void remove(QName name);
+
+    /**
+     * Get the cache to use while parsing a single document.  By default, this cache is used for all documents.
+     *
+     * @return the cache for a single document
+     */
+    default XMLElementReaderCache forDocument() {
+        return this;
+    }
+
+    /**
+     * Get the number of lookups which found a cached reader.
+     *
+     * @return the hit count
+     */
+    long getHitCount();
+
+    /**
+     * Get the number of lookups which had to create a reader.
+     *
+     * @return the miss count
+     */
+    long getMissCount();
+
+    /**
+     * Create a cache which retains readers only for the duration of parsing a single document.  This is the default.
+     *
+     * @return the new cache
+     */
+    static XMLElementReaderCache perDocument() {
+        return new XMLElementReaderCaches.PerDocument();
+    }
+
+    /**
+     * Create a cache which retains readers until they are unregistered.
+     *
+     * @return the new cache
+     */
+    static XMLElementReaderCache unbounded() {
+        return new XMLElementReaderCaches.Unbounded();
+    }
+
+    /**
+     * Create a cache which retains up to the given number of the most recently used readers.
+     *
+     * @param maxSize the maximum number of retained readers
+     * @return the new cache
+     */
+    static XMLElementReaderCache leastRecentlyUsed(int maxSize) {
+        return new XMLElementReaderCaches.LeastRecentlyUsed(maxSize);
+    }
+
+    /**
+     * Create a cache which retains readers via soft references, so that they are only recreated under memory pressure.
+     *
+     * @return the new cache
+     */
+    static XMLElementReaderCache softReferences() {
+        return new XMLElementReaderCaches.References(true);
+    }
+
+    /**
+     * Create a cache which retains readers via weak references, so that they are recreated once they are no longer
+     * otherwise reachable.
+     *
+     * @return the new cache
+     */
+    static XMLElementReaderCache weakReferences() {
+        return new XMLElementReaderCaches.References(false);
+    }
+}
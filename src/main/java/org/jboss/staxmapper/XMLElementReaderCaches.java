@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.xml.namespace.QName;
+
+/**
+ * The {@link XMLElementReaderCache} implementations.
+ */
+final class XMLElementReaderCaches {
+
+    private XMLElementReaderCaches() {
+    }
+
+    abstract static class Counting implements XMLElementReaderCache {
+        private final LongAdder hits;
+        private final LongAdder misses;
+
+        Counting() {
+            this(new LongAdder(), new LongAdder());
+        }
+
+        Counting(final LongAdder hits, final LongAdder misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        final XMLElementReader<?> hit(final XMLElementReader<?> reader) {
+            hits.increment();
+            return reader;
+        }
+
+        final XMLElementReader<?> miss(final QName name, final Function<QName, ? extends XMLElementReader<?>> factory) {
+            misses.increment();
+            return factory.apply(name);
+        }
+
+        final LongAdder hits() {
+            return hits;
+        }
+
+        final LongAdder misses() {
+            return misses;
+        }
+
+        public long getHitCount() {
+            return hits.sum();
+        }
+
+        public long getMissCount() {
+            return misses.sum();
+        }
+    }
+
+    static class Unbounded extends Counting {
+        private final ConcurrentMap<QName, XMLElementReader<?>> readers = new ConcurrentHashMap<>();
+
+        Unbounded() {
+        }
+
+        Unbounded(final LongAdder hits, final LongAdder misses) {
+            super(hits, misses);
+        }
+
+        public XMLElementReader<?> getReader(final QName name, final Function<QName, ? extends XMLElementReader<?>> factory) {
+            final XMLElementReader<?> reader = readers.get(name);
+            return reader != null ? hit(reader) : readers.computeIfAbsent(name, key -> miss(key, factory));
+        }
+
+        public void remove(final QName name) {
+            readers.remove(name);
+        }
+    }
+
+    static final class PerDocument extends Counting {
+
+        public XMLElementReaderCache forDocument() {
+            return new Unbounded(hits(), misses());
+        }
+
+        public XMLElementReader<?> getReader(final QName name, final Function<QName, ? extends XMLElementReader<?>> factory) {
+            return miss(name, factory);
+        }
+
+        public void remove(final QName name) {
+            // readers are only retained by the per-document caches
+        }
+    }
+
+    static final class LeastRecentlyUsed extends Counting {
+        private final Map<QName, XMLElementReader<?>> readers;
+
+        LeastRecentlyUsed(final int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("Invalid maximum size " + maxSize);
+            }
+            readers = new LinkedHashMap<QName, XMLElementReader<?>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                protected boolean removeEldestEntry(final Map.Entry<QName, XMLElementReader<?>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        public XMLElementReader<?> getReader(final QName name, final Function<QName, ? extends XMLElementReader<?>> factory) {
+            synchronized (readers) {
+                final XMLElementReader<?> reader = readers.get(name);
+                if (reader != null) {
+                    return hit(reader);
+                }
+            }
+            final XMLElementReader<?> reader = miss(name, factory);
+            if (reader != null) {
+                synchronized (readers) {
+                    final XMLElementReader<?> existing = readers.putIfAbsent(name, reader);
+                    if (existing != null) {
+                        return existing;
+                    }
+                }
+            }
+            return reader;
+        }
+
+        public void remove(final QName name) {
+            synchronized (readers) {
+                readers.remove(name);
+            }
+        }
+    }
+
+    static final class References extends Counting {
+        private final ConcurrentMap<QName, Reference<XMLElementReader<?>>> readers = new ConcurrentHashMap<>();
+        private final ReferenceQueue<XMLElementReader<?>> queue = new ReferenceQueue<>();
+        private final boolean soft;
+
+        References(final boolean soft) {
+            this.soft = soft;
+        }
+
+        public XMLElementReader<?> getReader(final QName name, final Function<QName, ? extends XMLElementReader<?>> factory) {
+            final Reference<XMLElementReader<?>> reference = readers.get(name);
+            if (reference != null) {
+                final XMLElementReader<?> reader = reference.get();
+                if (reader != null) {
+                    return hit(reader);
+                }
+            }
+            expunge();
+            final XMLElementReader<?> reader = miss(name, factory);
+            if (reader != null) {
+                readers.put(name, soft ? new SoftKeyedReference(name, reader, queue) : new WeakKeyedReference(name, reader, queue));
+            }
+            return reader;
+        }
+
+        public void remove(final QName name) {
+            readers.remove(name);
+        }
+
+        private void expunge() {
+            Reference<? extends XMLElementReader<?>> reference;
+            while ((reference = queue.poll()) != null) {
+                readers.remove(((KeyedReference) reference).getKey(), reference);
+            }
+        }
+    }
+
+    interface KeyedReference {
+        QName getKey();
+    }
+
+    static final class SoftKeyedReference extends SoftReference<XMLElementReader<?>> implements KeyedReference {
+        private final QName key;
+
+        SoftKeyedReference(final QName key, final XMLElementReader<?> reader, final ReferenceQueue<XMLElementReader<?>> queue) {
+            super(reader, queue);
+            this.key = key;
+        }
+
+        public QName getKey() {
+            return key;
+        }
+    }
+
+    static final class WeakKeyedReference extends WeakReference<XMLElementReader<?>> implements KeyedReference {
+        private final QName key;
+
+        WeakKeyedReference(final QName key, final XMLElementReader<?> reader, final ReferenceQueue<XMLElementReader<?>> queue) {
+            super(reader, queue);
+            this.key = key;
+        }
+
+        public QName getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,760 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.ENTITY_REFERENCE;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A compact recording of an element subtree of an XML stream, which can be replayed any number of times, from any
+ * thread, without parsing it again.  Names and other repeated strings are stored once in a symbol table and referred
+ * to by index, events and their attributes are packed into an int array together with the line and column of each
+ * event, and all text is packed into a char array.  Both arrays may instead be held off-heap in direct buffers.
+ * <p>
+ * A {@linkplain #replay(XMLMapper) replay} is an {@link XMLExtendedStreamReader}, so existing element readers can
+ * consume it unchanged, including their nested {@link XMLExtendedStreamReader#handleAny(Object) handleAny} calls.
+ * Prefixes which are declared outside of the recorded subtree are only resolvable through the namespace context of
+ * a replay if they are used by an element or attribute name within it.
+ */
+public final class XMLEventBuffer {
+    // Each event starts with its type, line and column
+    static final int TYPE = 0;
+    static final int LINE = 1;
+    static final int COLUMN = 2;
+    // START_ELEMENT: offset of the END_ELEMENT, number of events up to it, names, counts,
+    // then the attributes and the namespace declarations
+    static final int START_END = 3;
+    static final int START_EVENTS = 4;
+    static final int START_NAMESPACE = 5;
+    static final int START_LOCAL_NAME = 6;
+    static final int START_PREFIX = 7;
+    static final int START_ATTRIBUTE_COUNT = 8;
+    static final int START_NAMESPACE_COUNT = 9;
+    static final int START_SIZE = 10;
+    // namespace, local name, prefix, type, value start, value length, specified
+    static final int ATTRIBUTE_SIZE = 7;
+    static final int NAMESPACE_SIZE = 2;
+    // END_ELEMENT: offset of the START_ELEMENT
+    static final int END_START = 3;
+    static final int END_SIZE = 4;
+    // Any other event: name or target symbol, text start and length
+    static final int TEXT_NAME = 3;
+    static final int TEXT_START = 4;
+    static final int TEXT_LENGTH = 5;
+    static final int TEXT_SIZE = 6;
+
+    private final IntBuffer events;
+    private final int size;
+    private final int eventCount;
+    private final CharBuffer text;
+    private final char[] textArray;
+    private final String[] symbols;
+    // prefix, URI per namespace used but not declared within the subtree
+    private final String[] inherited;
+    private final String publicId;
+    private final String systemId;
+
+    private XMLEventBuffer(final IntBuffer events, final int size, final int eventCount, final CharBuffer text, final String[] symbols, final String[] inherited, final String publicId, final String systemId) {
+        this.events = events;
+        this.size = size;
+        this.eventCount = eventCount;
+        this.text = text;
+        this.textArray = text.hasArray() ? text.array() : null;
+        this.symbols = symbols;
+        this.inherited = inherited;
+        this.publicId = publicId;
+        this.systemId = systemId;
+    }
+
+    /**
+     * Record the element subtree at the current position of the given reader on the heap.  The reader must be
+     * positioned on a {@code START_ELEMENT}; on return it is positioned on the corresponding {@code END_ELEMENT}.
+     *
+     * @param reader the source reader
+     * @return the buffer
+     * @throws XMLStreamException if the source reader fails
+     */
+    public static XMLEventBuffer record(final XMLStreamReader reader) throws XMLStreamException {
+        return record(reader, null, false);
+    }
+
+    /**
+     * Record the element subtree at the current position of the given reader.  The reader must be positioned on a
+     * {@code START_ELEMENT}; on return it is positioned on the corresponding {@code END_ELEMENT}.
+     *
+     * @param reader the source reader
+     * @param direct {@code true} to hold the events and text off-heap in direct buffers, {@code false} for the heap
+     * @return the buffer
+     * @throws XMLStreamException if the source reader fails
+     */
+    public static XMLEventBuffer record(final XMLStreamReader reader, final boolean direct) throws XMLStreamException {
+        return record(reader, null, direct);
+    }
+
+    /**
+     * Record the element subtree at the current position of the given reader, feeding the content of each event
+     * to a digest as it is recorded.  Locations are not part of the digest, so that an unchanged subtree has the
+     * same digest wherever it occurs.
+     *
+     * @param reader the source reader
+     * @param digest the digest to update, or {@code null} for none
+     * @param direct {@code true} to hold the events and text in direct buffers
+     * @return the buffer
+     * @throws XMLStreamException if the source reader fails
+     */
+    static XMLEventBuffer record(final XMLStreamReader reader, final MessageDigest digest, final boolean direct) throws XMLStreamException {
+        reader.require(START_ELEMENT, null, null);
+        final Location first = reader.getLocation();
+        final Recorder recorder = new Recorder(digest);
+        int depth = 0;
+        int type = START_ELEMENT;
+        for (;;) {
+            final Location location = reader.getLocation();
+            final int line = location.getLineNumber();
+            final int column = location.getColumnNumber();
+            switch (type) {
+                case START_ELEMENT: {
+                    recorder.startElement(reader, line, column);
+                    depth++;
+                    break;
+                }
+                case END_ELEMENT: {
+                    recorder.endElement(line, column);
+                    depth--;
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    recorder.text(type, line, column, reader.getPITarget(), reader.getPIData());
+                    break;
+                }
+                case ENTITY_REFERENCE: {
+                    recorder.text(type, line, column, reader.getLocalName(), reader.getText());
+                    break;
+                }
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case COMMENT: {
+                    recorder.text(type, line, column, reader);
+                    break;
+                }
+                default: {
+                    // DTD-related events cannot occur within an element
+                    break;
+                }
+            }
+            if (depth == 0) {
+                break;
+            }
+            type = reader.next();
+        }
+        return recorder.finish(first.getPublicId(), first.getSystemId(), direct);
+    }
+
+    /**
+     * Get the name of the recorded element.
+     *
+     * @return the element name
+     */
+    public QName getName() {
+        return new QName(symbol(get(START_NAMESPACE)), symbol(get(START_LOCAL_NAME)), symbol(get(START_PREFIX)));
+    }
+
+    /**
+     * Get the location of the start of the recorded element in its document.
+     *
+     * @return the location
+     */
+    public Location getLocation() {
+        return location(0);
+    }
+
+    /**
+     * Get the number of recorded events, including the {@code START_ELEMENT} and {@code END_ELEMENT} of the element.
+     *
+     * @return the number of events
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Determine whether the events and text are held off-heap.
+     *
+     * @return {@code true} if they are held in direct buffers
+     */
+    public boolean isDirect() {
+        return events.isDirect();
+    }
+
+    /**
+     * Create a reader which replays the recorded element, positioned on its {@code START_ELEMENT}.  Nested elements
+     * are handled by the root elements registered with the given mapper.  Replays are independent of each other.
+     *
+     * @param mapper the mapper, created by {@link XMLMapper.Factory#create()}
+     * @return the reader
+     */
+    public XMLExtendedStreamReader replay(final XMLMapper mapper) {
+        final XMLMapperImpl xmlMapper = mapperImpl(mapper);
+        return new XMLExtendedStreamReaderImpl(xmlMapper, new BufferedXMLStreamReader(this), xmlMapper.getRootElementCache().forDocument(), new SnapshotCache());
+    }
+
+    /**
+     * Read the recorded element into the given value using the root element reader registered with the given mapper,
+     * as {@link XMLExtendedStreamReader#handleAny(Object)} would have.
+     *
+     * @param mapper the mapper, created by {@link XMLMapper.Factory#create()}
+     * @param value the value to pass in
+     * @throws XMLStreamException if an error occurs
+     */
+    public void parse(final XMLMapper mapper, final Object value) throws XMLStreamException {
+        ((XMLExtendedStreamReaderImpl) replay(mapper)).processElement(value);
+    }
+
+    private static XMLMapperImpl mapperImpl(final XMLMapper mapper) {
+        if (! (mapper instanceof XMLMapperImpl)) {
+            throw new IllegalArgumentException("Mapper was not created by XMLMapper.Factory");
+        }
+        return (XMLMapperImpl) mapper;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(final int index) {
+        return events.get(index);
+    }
+
+    String symbol(final int index) {
+        return index < 0 ? null : symbols[index];
+    }
+
+    String text(final int start, final int length) {
+        if (length < 0) {
+            return null;
+        }
+        return textArray != null ? new String(textArray, start, length) : text.subSequence(start, start + length).toString();
+    }
+
+    boolean textEquals(final int start, final int length, final CharSequence value) {
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    char charAt(final int index) {
+        return textArray != null ? textArray[index] : text.get(index);
+    }
+
+    /**
+     * Get the array holding the text, or {@code null} if it is held off-heap.
+     */
+    char[] textArray() {
+        return textArray;
+    }
+
+    void getChars(final int start, final int length, final char[] target, final int targetStart) {
+        if (textArray != null) {
+            System.arraycopy(textArray, start, target, targetStart, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                target[targetStart + i] = text.get(start + i);
+            }
+        }
+    }
+
+    String inheritedNamespaceURI(final String prefix) {
+        for (int i = 0; i < inherited.length; i += 2) {
+            if (inherited[i].equals(prefix)) {
+                return inherited[i + 1];
+            }
+        }
+        return null;
+    }
+
+    String[] inherited() {
+        return inherited;
+    }
+
+    /**
+     * Get the size in ints of the event at the given offset.
+     */
+    int eventSize(final int offset) {
+        switch (get(offset + TYPE)) {
+            case START_ELEMENT: {
+                return START_SIZE + get(offset + START_ATTRIBUTE_COUNT) * ATTRIBUTE_SIZE + get(offset + START_NAMESPACE_COUNT) * NAMESPACE_SIZE;
+            }
+            case END_ELEMENT: {
+                return END_SIZE;
+            }
+            default: {
+                return TEXT_SIZE;
+            }
+        }
+    }
+
+    Location location(final int offset) {
+        return new FixedLocation(get(offset + LINE), get(offset + COLUMN), -1, publicId, systemId);
+    }
+
+    /**
+     * Write this buffer in the binary form read by {@link #read(ByteBuffer)}.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void write(final DataOutput out) throws IOException {
+        out.writeInt(symbols.length);
+        for (String symbol : symbols) {
+            writeString(out, symbol);
+        }
+        out.writeInt(inherited.length);
+        for (String string : inherited) {
+            writeString(out, string);
+        }
+        writeString(out, publicId);
+        writeString(out, systemId);
+        out.writeInt(eventCount);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(events.get(i));
+        }
+        final int textLength = text.limit();
+        out.writeInt(textLength);
+        for (int i = 0; i < textLength; i++) {
+            out.writeChar(text.get(i));
+        }
+    }
+
+    /**
+     * Read a buffer written by {@link #write(DataOutput)} onto the heap, advancing the position of the input.
+     *
+     * @param in the input
+     * @return the buffer
+     * @throws IllegalArgumentException if the input is not a valid buffer
+     */
+    static XMLEventBuffer read(final ByteBuffer in) {
+        try {
+            final String[] symbols = new String[count(in, Integer.BYTES)];
+            for (int i = 0; i < symbols.length; i++) {
+                final String symbol = readString(in);
+                // Interned, so that the symbol table matches them by identity
+                symbols[i] = symbol == null ? null : symbol.intern();
+            }
+            final String[] inherited = new String[count(in, Integer.BYTES)];
+            for (int i = 0; i < inherited.length; i++) {
+                inherited[i] = readString(in);
+            }
+            final String publicId = readString(in);
+            final String systemId = readString(in);
+            final int eventCount = in.getInt();
+            final int[] events = new int[count(in, Integer.BYTES)];
+            in.asIntBuffer().get(events);
+            ((Buffer) in).position(in.position() + events.length * Integer.BYTES);
+            final char[] text = new char[count(in, Character.BYTES)];
+            in.asCharBuffer().get(text);
+            ((Buffer) in).position(in.position() + text.length * Character.BYTES);
+            if (events.length < START_SIZE || events[TYPE] != START_ELEMENT) {
+                throw new IllegalArgumentException("Buffer does not start with an element");
+            }
+            return new XMLEventBuffer(IntBuffer.wrap(events), events.length, eventCount, CharBuffer.wrap(text), symbols, inherited, publicId, systemId);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated buffer", e);
+        }
+    }
+
+    private static void writeString(final DataOutput out, final String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(string.length());
+            out.writeChars(string);
+        }
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining() / Character.BYTES) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        final char[] chars = new char[length];
+        in.asCharBuffer().get(chars);
+        ((Buffer) in).position(in.position() + length * Character.BYTES);
+        return new String(chars);
+    }
+
+    private static int count(final ByteBuffer in, final int elementSize) {
+        final int count = in.getInt();
+        // Each element takes at least this many bytes, which bounds the count by the input remaining
+        if (count < 0 || count > in.remaining() / elementSize) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    // private members
+
+    /**
+     * Packs events into growable arrays while recording.
+     */
+    private static final class Recorder {
+        private final Digester digester;
+        private final Map<String, Integer> symbolIndex = new HashMap<>();
+        private final List<String> symbols = new ArrayList<>();
+        private final Map<String, String> inherited = new LinkedHashMap<>();
+        private int[] events = new int[256];
+        private int size;
+        private int eventCount;
+        private char[] text = new char[256];
+        private int textSize;
+        // offsets and event numbers of the open START_ELEMENTs
+        private int[] open = new int[32];
+        private int depth;
+
+        Recorder(final MessageDigest digest) {
+            digester = digest == null ? null : new Digester(digest);
+        }
+
+        void startElement(final XMLStreamReader reader, final int line, final int column) {
+            final int attributeCount = reader.getAttributeCount();
+            final int namespaceCount = reader.getNamespaceCount();
+            final int offset = reserve(START_SIZE + attributeCount * ATTRIBUTE_SIZE + namespaceCount * NAMESPACE_SIZE);
+            final String namespaceURI = nonNull(reader.getNamespaceURI());
+            final String prefix = nonNull(reader.getPrefix());
+            inherit(prefix, namespaceURI);
+            final int[] events = this.events;
+            events[offset + TYPE] = START_ELEMENT;
+            events[offset + LINE] = line;
+            events[offset + COLUMN] = column;
+            events[offset + START_NAMESPACE] = symbol(namespaceURI);
+            events[offset + START_LOCAL_NAME] = symbol(reader.getLocalName());
+            events[offset + START_PREFIX] = symbol(prefix);
+            events[offset + START_ATTRIBUTE_COUNT] = attributeCount;
+            events[offset + START_NAMESPACE_COUNT] = namespaceCount;
+            if (digester != null) {
+                digester.putInt(START_ELEMENT);
+                digester.put(namespaceURI);
+                digester.put(reader.getLocalName());
+                digester.put(prefix);
+                digester.putInt(attributeCount);
+                digester.putInt(namespaceCount);
+            }
+            int base = offset + START_SIZE;
+            for (int i = 0; i < attributeCount; i++, base += ATTRIBUTE_SIZE) {
+                final String attributeNamespace = nonNull(reader.getAttributeNamespace(i));
+                final String attributePrefix = nonNull(reader.getAttributePrefix(i));
+                final String value = reader.getAttributeValue(i);
+                final boolean specified = reader.isAttributeSpecified(i);
+                inherit(attributePrefix, attributeNamespace);
+                events[base] = symbol(attributeNamespace);
+                events[base + 1] = symbol(reader.getAttributeLocalName(i));
+                events[base + 2] = symbol(attributePrefix);
+                events[base + 3] = symbol(reader.getAttributeType(i));
+                events[base + 4] = textSize;
+                events[base + 5] = value.length();
+                events[base + 6] = specified ? 1 : 0;
+                appendText(value);
+                if (digester != null) {
+                    digester.put(attributeNamespace);
+                    digester.put(reader.getAttributeLocalName(i));
+                    digester.put(attributePrefix);
+                    digester.put(reader.getAttributeType(i));
+                    digester.put(value);
+                    digester.putInt(specified ? 1 : 0);
+                }
+            }
+            for (int i = 0; i < namespaceCount; i++, base += NAMESPACE_SIZE) {
+                final String namespacePrefix = nonNull(reader.getNamespacePrefix(i));
+                final String namespace = nonNull(reader.getNamespaceURI(i));
+                events[base] = symbol(namespacePrefix);
+                events[base + 1] = symbol(namespace);
+                if (digester != null) {
+                    digester.put(namespacePrefix);
+                    digester.put(namespace);
+                }
+            }
+            if (depth * 2 == open.length) {
+                open = Arrays.copyOf(open, open.length * 2);
+            }
+            open[depth * 2] = offset;
+            open[depth * 2 + 1] = eventCount;
+            depth++;
+            eventCount++;
+            if (digester != null) {
+                digester.flush();
+            }
+        }
+
+        void endElement(final int line, final int column) {
+            depth--;
+            final int start = open[depth * 2];
+            final int offset = reserve(END_SIZE);
+            final int[] events = this.events;
+            events[start + START_END] = offset;
+            events[start + START_EVENTS] = eventCount - open[depth * 2 + 1];
+            events[offset + TYPE] = END_ELEMENT;
+            events[offset + LINE] = line;
+            events[offset + COLUMN] = column;
+            events[offset + END_START] = start;
+            eventCount++;
+            if (digester != null) {
+                digester.putInt(END_ELEMENT);
+                digester.flush();
+            }
+        }
+
+        void text(final int type, final int line, final int column, final String name, final String value) {
+            final int offset = reserve(TEXT_SIZE);
+            events[offset + TYPE] = type;
+            events[offset + LINE] = line;
+            events[offset + COLUMN] = column;
+            events[offset + TEXT_NAME] = name == null ? -1 : symbol(name);
+            events[offset + TEXT_START] = textSize;
+            events[offset + TEXT_LENGTH] = value == null ? -1 : value.length();
+            if (value != null) {
+                appendText(value);
+            }
+            eventCount++;
+            if (digester != null) {
+                digester.putInt(type);
+                digester.put(name);
+                digester.put(value);
+                digester.flush();
+            }
+        }
+
+        void text(final int type, final int line, final int column, final XMLStreamReader reader) {
+            final char[] characters = reader.getTextCharacters();
+            final int start = reader.getTextStart();
+            final int length = reader.getTextLength();
+            final int offset = reserve(TEXT_SIZE);
+            events[offset + TYPE] = type;
+            events[offset + LINE] = line;
+            events[offset + COLUMN] = column;
+            events[offset + TEXT_NAME] = -1;
+            events[offset + TEXT_START] = textSize;
+            events[offset + TEXT_LENGTH] = length;
+            appendText(characters, start, length);
+            eventCount++;
+            if (digester != null) {
+                digester.putInt(type);
+                digester.put(null);
+                digester.put(characters, start, length);
+                digester.flush();
+            }
+        }
+
+        XMLEventBuffer finish(final String publicId, final String systemId, final boolean direct) {
+            final IntBuffer events;
+            final CharBuffer text;
+            if (direct) {
+                events = ByteBuffer.allocateDirect(Math.max(size, 1) * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+                events.put(this.events, 0, size);
+                text = ByteBuffer.allocateDirect(Math.max(textSize, 1) * Character.BYTES).order(ByteOrder.nativeOrder()).asCharBuffer();
+                text.put(this.text, 0, textSize);
+                ((Buffer) events).flip();
+                ((Buffer) text).flip();
+            } else {
+                events = IntBuffer.wrap(Arrays.copyOf(this.events, size));
+                text = CharBuffer.wrap(Arrays.copyOf(this.text, textSize));
+            }
+            final String[] inherited = new String[this.inherited.size() * 2];
+            int i = 0;
+            for (Map.Entry<String, String> entry : this.inherited.entrySet()) {
+                inherited[i++] = entry.getKey();
+                inherited[i++] = entry.getValue();
+            }
+            return new XMLEventBuffer(events, size, eventCount, text, symbols.toArray(new String[symbols.size()]), inherited, publicId, systemId);
+        }
+
+        private int reserve(final int length) {
+            final int offset = size;
+            if (offset + length > events.length) {
+                events = Arrays.copyOf(events, Math.max(offset + length, events.length * 2));
+            }
+            size = offset + length;
+            return offset;
+        }
+
+        private int symbol(final String string) {
+            final Integer index = symbolIndex.get(string);
+            if (index != null) {
+                return index.intValue();
+            }
+            final int newIndex = symbols.size();
+            symbols.add(string);
+            symbolIndex.put(string, Integer.valueOf(newIndex));
+            return newIndex;
+        }
+
+        private void appendText(final String value) {
+            final int length = value.length();
+            ensureText(length);
+            value.getChars(0, length, text, textSize);
+            textSize += length;
+        }
+
+        private void appendText(final char[] characters, final int start, final int length) {
+            ensureText(length);
+            System.arraycopy(characters, start, text, textSize, length);
+            textSize += length;
+        }
+
+        private void ensureText(final int length) {
+            if (textSize + length > text.length) {
+                text = Arrays.copyOf(text, Math.max(textSize + length, text.length * 2));
+            }
+        }
+
+        private void inherit(final String prefix, final String namespaceURI) {
+            if (! namespaceURI.isEmpty()) {
+                inherited.putIfAbsent(prefix, namespaceURI);
+            }
+        }
+
+        private static String nonNull(final String string) {
+            return string == null ? "" : string;
+        }
+    }
+
+    /**
+     * Feeds the content of events to a digest, through a small buffer.
+     */
+    private static final class Digester {
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(512);
+
+        Digester(final MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        void put(final String string) {
+            if (string == null) {
+                putInt(-1);
+                return;
+            }
+            final int length = string.length();
+            putInt(length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.remaining() < 2) {
+                    flush();
+                }
+                buffer.putChar(string.charAt(i));
+            }
+        }
+
+        void put(final char[] characters, final int start, final int length) {
+            putInt(length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.remaining() < 2) {
+                    flush();
+                }
+                buffer.putChar(characters[start + i]);
+            }
+        }
+
+        void putInt(final int value) {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void flush() {
+            digest.update(buffer.array(), 0, buffer.position());
+            ((Buffer) buffer).clear();
+        }
+    }
+
+    /**
+     * An immutable location.
+     */
+    static final class FixedLocation implements Location {
+        private final int lineNumber;
+        private final int columnNumber;
+        private final int characterOffset;
+        private final String publicId;
+        private final String systemId;
+
+        FixedLocation(final int lineNumber, final int columnNumber, final int characterOffset, final String publicId, final String systemId) {
+            this.lineNumber = lineNumber;
+            this.columnNumber = columnNumber;
+            this.characterOffset = characterOffset;
+            this.publicId = publicId;
+            this.systemId = systemId;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public int getColumnNumber() {
+            return columnNumber;
+        }
+
+        public int getCharacterOffset() {
+            return characterOffset;
+        }
+
+        public String getPublicId() {
+            return publicId;
+        }
+
+        public String getSystemId() {
+            return systemId;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 package org.jboss.staxmapper;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -41,6 +43,45 @@ public interface XMLExtendedStreamReader extends XMLStreamReader {
      */
     void handleAny(Object value) throws XMLStreamException;
 
+    /**
+     * Handle an {@code <xs:any>}-type nested element, reading it into a new value which is then passed to the given
+     * merger.  Must be positioned on a {@code START_ELEMENT} or an exception will occur.  On return the cursor will be
+     * positioned on the corresponding {@code END_ELEMENT}.
+     * <p>
+     * If the {@link XMLMapper#setExecutor(java.util.concurrent.Executor) mapper has an executor}, the element is
+     * buffered and read on that executor, concurrently with its siblings.  The merger is always invoked on the
+     * calling thread, in document order, before the enclosing element has been completely handled.  Otherwise the
+     * element is read immediately and merged before this method returns.
+     *
+     * @param valueFactory the factory for the value to pass in
+     * @param merger the consumer of the value once the element has been read
+     * @param <T> the value type
+     * @throws XMLStreamException if an error occurs (e.g. the given value
+     * does not match the type of the handler for the element, or the element is
+     * unknown)
+     */
+    default <T> void handleAny(Supplier<T> valueFactory, Consumer<? super T> merger) throws XMLStreamException {
+        final T value = valueFactory.get();
+        handleAny(value);
+        merger.accept(value);
+    }
+
+    /**
+     * Record an {@code <xs:any>}-type nested element, deferring its reading until the returned element is
+     * {@linkplain XMLDeferredElement#parse(Object) parsed}, if ever.  Must be positioned on a {@code START_ELEMENT}
+     * or an exception will occur.  On return the cursor will be positioned on the corresponding {@code END_ELEMENT}.
+     *
+     * <p>
+     * Readers which cannot record elements, such as those implemented outside this library, throw an exception.
+     *
+     * @return the recorded element
+     * @throws XMLStreamException if an error occurs (e.g. the element is unknown), or if this reader does not support
+     * deferred elements
+     */
+    default XMLDeferredElement handleAnyLazily() throws XMLStreamException {
+        throw new XMLStreamException("Deferred elements are not supported by " + getClass().getName(), getLocation());
+    }
+
     /**
      * Handle an extended attribute, passing in the given value.
      * Must be positioned on a {@code START_ELEMENT} or an exception will occur.
@@ -71,7 +112,7 @@ public interface XMLExtendedStreamReader extends XMLStreamReader {
     int getIntAttributeValue(int index) throws XMLStreamException;
 
     /**
-     * Get the value of an attribute as an integer list.
+     * Get the value of an attribute as an integer list.  Values may be separated by any amount of whitespace.
      *
      * @param index the index of the attribute
      * @return the integer values
@@ -98,7 +139,7 @@ public interface XMLExtendedStreamReader extends XMLStreamReader {
     long getLongAttributeValue(int index) throws XMLStreamException;
 
     /**
-     * Get the value of an attribute as a long integer list.
+     * Get the value of an attribute as a long integer list.  Values may be separated by any amount of whitespace.
      *
      * @param index the index of the attribute
      * @return the long values
@@ -106,6 +147,38 @@ public interface XMLExtendedStreamReader extends XMLStreamReader {
      */
     long[] getLongListAttributeValue(int index) throws XMLStreamException;
 
+    /**
+     * Get the value of an attribute as a double list.  Values may be separated by any amount of whitespace, and use
+     * the {@code xs:double} lexical form.
+     *
+     * @param index the index of the attribute
+     * @return the double values
+     * @throws XMLStreamException if an error occurs
+     */
+    default double[] getDoubleListAttributeValue(int index) throws XMLStreamException {
+        try {
+            return ListAttributeParser.parseDoubles(getAttributeValue(index));
+        } catch (NumberFormatException e) {
+            throw new XMLStreamException("Failed to parse a double attribute", getLocation(), e);
+        }
+    }
+
+    /**
+     * Get the value of an attribute as a boolean list.  Values may be separated by any amount of whitespace, and use
+     * the {@code xs:boolean} lexical form, i.e. {@code true}, {@code false}, {@code 1} or {@code 0}.
+     *
+     * @param index the index of the attribute
+     * @return the boolean values
+     * @throws XMLStreamException if an error occurs
+     */
+    default boolean[] getBooleanListAttributeValue(int index) throws XMLStreamException {
+        try {
+            return ListAttributeParser.parseBooleans(getAttributeValue(index));
+        } catch (IllegalArgumentException e) {
+            throw new XMLStreamException("Failed to parse a boolean attribute", getLocation(), e);
+        }
+    }
+
     /**
      * Get the attribute value using intelligent type conversion.  Numeric types
      * will be parsed; enum types will be mapped.
@@ -129,6 +202,59 @@ public interface XMLExtendedStreamReader extends XMLStreamReader {
      */
     <T> List<? extends T> getListAttributeValue(int index, Class<T> kind) throws XMLStreamException;
 
+    /**
+     * Determine whether the value of an attribute equals the given characters.  Where the underlying reader allows,
+     * the value is compared in place, without creating a string.
+     *
+     * @param index the index of the attribute
+     * @param value the characters to compare with
+     * @return {@code true} if the value equals the characters
+     */
+    default boolean attributeValueEquals(int index, CharSequence value) {
+        return getAttributeValue(index).contentEquals(value);
+    }
+
+    /**
+     * Determine whether an attribute has the given name, without creating a {@link javax.xml.namespace.QName}.
+     *
+     * @param index the index of the attribute
+     * @param namespaceURI the namespace of the attribute, {@code ""} for none, or {@code null} to match any namespace
+     * @param localName the local name of the attribute
+     * @return {@code true} if the attribute has the name
+     */
+    default boolean attributeNameIs(int index, String namespaceURI, String localName) {
+        if (! localName.equals(getAttributeLocalName(index))) {
+            return false;
+        }
+        if (namespaceURI == null) {
+            return true;
+        }
+        final String attributeNamespace = getAttributeNamespace(index);
+        return namespaceURI.equals(attributeNamespace == null ? "" : attributeNamespace);
+    }
+
+    /**
+     * Get the ID of the local name of the current element in the {@linkplain XMLMapper#getSymbolTable() symbol table}
+     * of the mapper.
+     *
+     * @return the ID, or {@link XMLSymbolTable#UNKNOWN} if the name is not registered
+     * @throws IllegalStateException if the current event is not a {@code START_ELEMENT} or {@code END_ELEMENT}
+     */
+    default int getLocalNameId() {
+        return getXMLMapper().getSymbolTable().getId(getLocalName());
+    }
+
+    /**
+     * Get the ID of the local name of an attribute in the {@linkplain XMLMapper#getSymbolTable() symbol table} of the
+     * mapper.
+     *
+     * @param index the index of the attribute
+     * @return the ID, or {@link XMLSymbolTable#UNKNOWN} if the name is not registered
+     */
+    default int getAttributeLocalNameId(int index) {
+        return getXMLMapper().getSymbolTable().getId(getAttributeLocalName(index));
+    }
+
     /**
      * Get the XML ID attribute, if any.
      *
@@ -18,12 +18,19 @@
 
 package org.jboss.staxmapper;
 
+import java.security.MessageDigest;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
@@ -37,18 +44,58 @@ import javax.xml.stream.XMLStreamReader;
 final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
 
     private final XMLMapperImpl xmlMapper;
-    private final XMLStreamReader streamReader;
-    private final XMLStreamReader fixedStreamReader;
+    private XMLStreamReader streamReader;
+    private final FixedXMLStreamReader fixedStreamReader;
+    private XMLElementReaderCache readerCache;
+    private SnapshotCache snapshots;
     private final Deque<Context> stack = new ArrayDeque<>();
+    private final int baseDepth;
     private boolean trimElementText = true;
+    // Cursor advances, for the parse listener and to identify the element of the attribute index
+    private long events;
+    private AttributeIndex attributeIndex;
+    // Attributes seen on the current element by the owning name resolver, valid while the event count is unchanged
+    private long seenAttributes;
+    private long seenAttributesEvents = -1;
+    private Object seenAttributesOwner;
 
-    XMLExtendedStreamReaderImpl(final XMLMapperImpl xmlMapper, final XMLStreamReader streamReader) {
+    XMLExtendedStreamReaderImpl(final XMLMapperImpl xmlMapper, final XMLStreamReader streamReader, final XMLElementReaderCache readerCache, final SnapshotCache snapshots) {
+        this(xmlMapper, streamReader, readerCache, snapshots, 0);
+    }
+
+    XMLExtendedStreamReaderImpl(final XMLMapperImpl xmlMapper, final XMLStreamReader streamReader, final XMLElementReaderCache readerCache, final SnapshotCache snapshots, final int baseDepth) {
         this.xmlMapper = xmlMapper;
         this.streamReader = streamReader;
+        this.readerCache = readerCache;
+        this.snapshots = snapshots;
+        this.baseDepth = baseDepth;
         fixedStreamReader = new FixedXMLStreamReader(this.streamReader);
         stack.push(new Context());
     }
 
+    /**
+     * Reset this reader to read a new document, keeping its buffers.
+     *
+     * @param streamReader the reader of the new document
+     * @param readerCache the reader cache of the new document
+     * @param snapshots the snapshots of the new document
+     */
+    void reset(final XMLStreamReader streamReader, final XMLElementReaderCache readerCache, final SnapshotCache snapshots) {
+        this.streamReader = streamReader;
+        this.readerCache = readerCache;
+        this.snapshots = snapshots;
+        fixedStreamReader.reset(streamReader);
+        stack.clear();
+        stack.push(new Context());
+        trimElementText = true;
+        events = 0;
+        if (attributeIndex != null) {
+            attributeIndex.invalidate();
+        }
+        seenAttributesEvents = -1;
+        seenAttributesOwner = null;
+    }
+
     @Override
     public void setTrimElementText(boolean trim) {
         this.trimElementText = trim;
@@ -57,12 +104,17 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
     @Override
     public void handleAny(final Object value) throws XMLStreamException {
         require(START_ELEMENT, null, null);
+        final XMLSnapshotter<Object> snapshotter = xmlMapper.getSnapshotter(streamReader.getNamespaceURI(), streamReader.getLocalName());
+        if (snapshotter != null) {
+            handleSnapshot(value, snapshotter);
+            return;
+        }
         boolean ok = false;
         try {
             final Deque<Context> stack = this.stack;
             stack.push(new Context());
             try {
-                xmlMapper.processNested(this, value);
+                processElement(value);
             } finally {
                 stack.pop();
             }
@@ -74,12 +126,120 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         }
     }
 
+    /**
+     * Apply the snapshot of the previous read of an element with the same content, if any, or else read the element
+     * and capture its snapshot.
+     */
+    private void handleSnapshot(final Object value, final XMLSnapshotter<Object> snapshotter) throws XMLStreamException {
+        boolean ok = false;
+        try {
+            final QName name = streamReader.getName();
+            final MessageDigest digest = SnapshotCache.newDigest();
+            final BufferedXMLStreamReader buffer = BufferedXMLStreamReader.record(streamReader, digest);
+            final byte[] hash = digest.digest();
+            final Consumer<Object> snapshot = snapshots.get(name, hash);
+            if (snapshot != null) {
+                snapshot.accept(value);
+            } else {
+                final Object mark = snapshotter.mark(value);
+                new XMLExtendedStreamReaderImpl(xmlMapper, buffer, readerCache, snapshots, getDepth()).processElement(value);
+                snapshots.put(name, hash, snapshotter.capture(value, mark));
+            }
+            ok = true;
+        } finally {
+            if (! ok) {
+                safeClose();
+            }
+        }
+    }
+
+    @Override
+    public <T> void handleAny(final Supplier<T> valueFactory, final Consumer<? super T> merger) throws XMLStreamException {
+        final Executor executor = xmlMapper.getExecutor();
+        if (executor == null) {
+            XMLExtendedStreamReader.super.handleAny(valueFactory, merger);
+            return;
+        }
+        require(START_ELEMENT, null, null);
+        boolean ok = false;
+        try {
+            final BufferedXMLStreamReader buffer = BufferedXMLStreamReader.record(streamReader);
+            final T value = valueFactory.get();
+            final XMLMapperImpl xmlMapper = this.xmlMapper;
+            final XMLElementReaderCache readerCache = this.readerCache;
+            final SnapshotCache snapshots = this.snapshots;
+            final int depth = getDepth();
+            final CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                try {
+                    new XMLExtendedStreamReaderImpl(xmlMapper, buffer, readerCache, snapshots, depth).processElement(value);
+                } catch (XMLStreamException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+            stack.getFirst().defer(new Deferred<>(future, value, merger));
+            ok = true;
+        } finally {
+            if (! ok) {
+                safeClose();
+            }
+        }
+    }
+
+    @Override
+    public XMLDeferredElement handleAnyLazily() throws XMLStreamException {
+        require(START_ELEMENT, null, null);
+        boolean ok = false;
+        try {
+            if (! xmlMapper.hasRootElement(streamReader.getNamespaceURI(), streamReader.getLocalName())) {
+                throw new XMLStreamException("Unexpected element '" + streamReader.getName() + "'", streamReader.getLocation());
+            }
+            final XMLDeferredElement element = new Lazy(xmlMapper, BufferedXMLStreamReader.record(streamReader), readerCache, getDepth());
+            ok = true;
+            return element;
+        } finally {
+            if (! ok) {
+                safeClose();
+            }
+        }
+    }
+
+    /**
+     * Read the element at the current position using its registered reader, then wait for and merge any
+     * elements it deferred to the executor.
+     *
+     * @param value the value to pass in
+     * @throws XMLStreamException if an error occurs
+     */
+    void processElement(final Object value) throws XMLStreamException {
+        final Context context = stack.getFirst();
+        boolean ok = false;
+        try {
+            xmlMapper.processNested(this, value);
+            final List<Deferred<?>> deferred = context.deferred;
+            if (deferred != null) {
+                for (int i = 0; i < deferred.size(); i++) {
+                    deferred.get(i).complete();
+                }
+            }
+            ok = true;
+        } finally {
+            final List<Deferred<?>> deferred = context.deferred;
+            context.deferred = null;
+            if (! ok && deferred != null) {
+                // Stop any elements still being read on behalf of a failed parse
+                for (Deferred<?> element : deferred) {
+                    element.future.cancel(false);
+                }
+            }
+        }
+    }
+
     @Override
     public void handleAttribute(final Object value, final int index) throws XMLStreamException {
         require(START_ELEMENT, null, null);
         boolean ok = false;
         try {
-            xmlMapper.processAttribute(fixedStreamReader, index, value);
+            xmlMapper.processAttribute(this, fixedStreamReader, index, value);
         } finally {
             if (!ok) {
                 safeClose();
@@ -115,6 +275,7 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         final Context context = stack.getFirst();
         if (context.depth > 0) {
             final int next = streamReader.next();
+            events++;
             if (next == END_ELEMENT) {
                 context.depth--;
             } else if(next == START_ELEMENT) {
@@ -138,6 +299,7 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
     @Override
     public String getElementText() throws XMLStreamException {
         String text = streamReader.getElementText();
+        events++;
         return trimElementText ? text.trim() : text;
     }
 
@@ -146,6 +308,7 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         final Context context = stack.getFirst();
         if (context.depth > 0) {
             final int next = streamReader.nextTag();
+            events++;
             if (next == END_ELEMENT) {
                 context.depth--;
             } else if(next == START_ELEMENT) {
@@ -198,7 +361,49 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
 
     @Override
     public String getAttributeValue(final String namespaceURI, final String localName) {
-        return streamReader.getAttributeValue(namespaceURI, localName);
+        final int count = streamReader.getAttributeCount();
+        if (count < AttributeIndex.THRESHOLD) {
+            return streamReader.getAttributeValue(namespaceURI, localName);
+        }
+        AttributeIndex attributeIndex = this.attributeIndex;
+        if (attributeIndex == null) {
+            attributeIndex = this.attributeIndex = new AttributeIndex();
+        }
+        if (! attributeIndex.isValid(events)) {
+            attributeIndex.build(streamReader, count, events);
+        }
+        final int index = attributeIndex.find(streamReader, namespaceURI, localName);
+        return index < 0 ? null : streamReader.getAttributeValue(index);
+    }
+
+    @Override
+    public boolean attributeValueEquals(final int index, final CharSequence value) {
+        if (streamReader instanceof BufferedXMLStreamReader) {
+            return ((BufferedXMLStreamReader) streamReader).attributeValueEquals(index, value);
+        }
+        return streamReader.getAttributeValue(index).contentEquals(value);
+    }
+
+    @Override
+    public int getLocalNameId() {
+        return xmlMapper.getSymbolTable().getId(streamReader.getLocalName());
+    }
+
+    @Override
+    public int getAttributeLocalNameId(final int index) {
+        return xmlMapper.getSymbolTable().getId(streamReader.getAttributeLocalName(index));
+    }
+
+    @Override
+    public boolean attributeNameIs(final int index, final String namespaceURI, final String localName) {
+        if (! localName.equals(streamReader.getAttributeLocalName(index))) {
+            return false;
+        }
+        if (namespaceURI == null) {
+            return true;
+        }
+        final String attributeNamespace = streamReader.getAttributeNamespace(index);
+        return namespaceURI.equals(attributeNamespace == null ? "" : attributeNamespace);
     }
 
     @Override
@@ -373,7 +578,7 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
     @Override
     public int[] getIntListAttributeValue(final int index) throws XMLStreamException {
         try {
-            return toInts(Spliterator.over(getAttributeValue(index), ' '), 0);
+            return ListAttributeParser.parseInts(getAttributeValue(index));
         } catch (NumberFormatException e) {
             throw intParseException(e, getLocation());
         }
@@ -396,7 +601,7 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
     @Override
     public long[] getLongListAttributeValue(final int index) throws XMLStreamException {
         try {
-            return toLongs(Spliterator.over(getAttributeValue(index), ' '), 0);
+            return ListAttributeParser.parseLongs(getAttributeValue(index));
         } catch (NumberFormatException e) {
             throw intParseException(e, getLocation());
         }
@@ -411,9 +616,7 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         } else if (kind == Long.class) {
             return kind.cast(Long.valueOf(getLongAttributeValue(index)));
         } else if (kind.isEnum()) {
-            @SuppressWarnings({ "unchecked", "rawtypes" })
-            T value = (T) Enum.valueOf((Class<Enum>) kind, getAttributeValue(index));
-            return value;
+            return kind.cast(enumValueResolver(kind).resolve(getAttributeValue(index)));
         } else if (kind == char[].class) {
             return kind.cast(getAttributeValue(index).toCharArray());
         } else {
@@ -447,10 +650,21 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
                 throw intParseException(e, getLocation());
             }
         } else if (kind.isEnum()) {
+            final EnumValueResolver<?> resolver = enumValueResolver(kind);
+            final String value = getAttributeValue(index);
             final List<T> list = new ArrayList<>();
-            for (String s : Spliterable.over(getAttributeValue(index), ' ')) {
-                Enum<?> en =  Enum.valueOf(kind.asSubclass(Enum.class), s);
-                list.add(kind.cast(en));
+            final int length = value.length();
+            int i = 0;
+            while (i < length) {
+                if (ListAttributeParser.isWhitespace(value.charAt(i))) {
+                    i++;
+                    continue;
+                }
+                final int start = i;
+                while (i < length && !ListAttributeParser.isWhitespace(value.charAt(i))) {
+                    i++;
+                }
+                list.add(kind.cast(resolver.resolve(value, start, i)));
             }
             return list;
         } else if (kind == char[].class) {
@@ -464,6 +678,11 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         }
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private EnumValueResolver<?> enumValueResolver(final Class<?> kind) {
+        return xmlMapper.getEnumValueResolver((Class<Enum>) kind);
+    }
+
     @Override
     public String getId() throws XMLStreamException {
         return getAttributeValue(null, "id");
@@ -474,18 +693,130 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         return xmlMapper;
     }
 
+    XMLElementReaderCache getReaderCache() {
+        return readerCache;
+    }
+
+    /**
+     * Get the nesting depth of the element being handled, where the root element has a depth of 1.
+     */
+    int getDepth() {
+        return baseDepth + stack.size();
+    }
+
+    long getEventCount() {
+        return events;
+    }
+
+    /**
+     * Get the attributes of the current element seen by the given owner, as a bitmask.
+     */
+    long getSeenAttributes(final Object owner) {
+        return seenAttributesEvents == events && seenAttributesOwner == owner ? seenAttributes : 0;
+    }
+
+    void setSeenAttributes(final Object owner, final long seen) {
+        seenAttributes = seen;
+        seenAttributesEvents = events;
+        seenAttributesOwner = owner;
+    }
+
     // private members
 
     private static final class Context {
         int depth = 1;
+        List<Deferred<?>> deferred;
+
+        void defer(final Deferred<?> element) {
+            List<Deferred<?>> deferred = this.deferred;
+            if (deferred == null) {
+                deferred = this.deferred = new ArrayList<>();
+            }
+            deferred.add(element);
+        }
+    }
+
+    private static final class Deferred<T> {
+        final CompletableFuture<Void> future;
+        final T value;
+        final Consumer<? super T> merger;
+
+        Deferred(final CompletableFuture<Void> future, final T value, final Consumer<? super T> merger) {
+            this.future = future;
+            this.value = value;
+            this.merger = merger;
+        }
+
+        void complete() throws XMLStreamException {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof XMLStreamException) {
+                    throw (XMLStreamException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new XMLStreamException(e);
+            }
+            merger.accept(value);
+        }
+    }
+
+    private static final class Lazy implements XMLDeferredElement {
+        private final XMLMapperImpl xmlMapper;
+        private final BufferedXMLStreamReader buffer;
+        private final XMLElementReaderCache readerCache;
+        private final int depth;
+
+        Lazy(final XMLMapperImpl xmlMapper, final BufferedXMLStreamReader buffer, final XMLElementReaderCache readerCache, final int depth) {
+            this.xmlMapper = xmlMapper;
+            this.buffer = buffer;
+            this.readerCache = readerCache;
+            this.depth = depth;
+        }
+
+        @Override
+        public QName getName() {
+            return buffer.getName();
+        }
+
+        @Override
+        public Location getLocation() {
+            return buffer.getLocation();
+        }
+
+        @Override
+        public void parse(final Object value) throws XMLStreamException {
+            // Each parse replays its own copy, so that parses may overlap
+            new XMLExtendedStreamReaderImpl(xmlMapper, buffer.replay(), readerCache, new SnapshotCache(), depth).processElement(value);
+        }
     }
 
     private void doDiscard() throws XMLStreamException {
-        int i;
-        while ((i = streamReader.next()) != END_ELEMENT) {
-            if (i == START_ELEMENT) {
-                doDiscard();
+        final XMLStreamReader streamReader = this.streamReader;
+        if (streamReader instanceof BufferedXMLStreamReader) {
+            // Jump straight to the end without visiting nested events
+            events += ((BufferedXMLStreamReader) streamReader).skipElement();
+            return;
+        }
+        // Balance tags without recursion, never asking for text, attributes or namespaces
+        int depth = 0;
+        long events = 0;
+        try {
+            for (;;) {
+                events++;
+                final int i = streamReader.next();
+                if (i == START_ELEMENT) {
+                    depth++;
+                } else if (i == END_ELEMENT && depth-- == 0) {
+                    return;
+                }
             }
+        } finally {
+            this.events += events;
         }
     }
 
@@ -497,32 +828,8 @@ final class XMLExtendedStreamReaderImpl implements XMLExtendedStreamReader {
         }
     }
 
-    private static final int[] NO_INTS = new int[0];
-    private static final long[] NO_LONGS = new long[0];
     private static final String[] NO_STRINGS = new String[0];
 
-    private static int[] toInts(Iterator<String> i, int count) {
-        if (i.hasNext()) {
-            final String n = i.next();
-            final int[] ints = toInts(i, count + 1);
-            ints[count] = Integer.parseInt(n);
-            return ints;
-        } else {
-            return count == 0 ? NO_INTS : new int[count];
-        }
-    }
-
-    private static long[] toLongs(Iterator<String> i, int count) {
-        if (i.hasNext()) {
-            final String n = i.next();
-            final long[] longs = toLongs(i, count + 1);
-            longs[count] = Long.parseLong(n);
-            return longs;
-        } else {
-            return count == 0 ? NO_LONGS : new long[count];
-        }
-    }
-
     private static String[] toStrings(Iterator<String> i, int count) {
         if (i.hasNext()) {
             final String s = i.next();
@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * A cache of the encoded output of element writers, used to deparse a document incrementally.  Each fragment is
+ * tagged with a caller-supplied version; when a document is written again, the fragments whose version is unchanged
+ * are copied verbatim and only the writers of changed fragments run.
+ * <p>
+ * Fragments are only captured and replayed by a {@link UTF8XMLStreamWriter}; with any other stream writer, the element
+ * writer simply runs.  A fragment is only replayed at the indentation level and with the unspecified element namespace
+ * it was captured with, and must not depend on other state, e.g. namespace bindings which change between writes.
+ * Replayed fragments are not reported to an {@link XMLDeparseListener}.
+ */
+public final class XMLFragmentCache {
+    private final ConcurrentMap<Object, UTF8XMLStreamWriter.Fragment> fragments = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Write the content of an element writer, replaying the fragment captured by a previous write of the same key and
+     * version if possible.  The element writer must write a sequence of complete elements.
+     *
+     * @param streamWriter the stream writer
+     * @param key the key identifying the fragment
+     * @param version the version of the value, which must change whenever the written content changes
+     * @param writer the element writer
+     * @param value the value to write
+     * @param <T> the type of the value
+     * @throws XMLStreamException if an exception occurs
+     */
+    public <T> void write(final XMLExtendedStreamWriter streamWriter, final Object key, final long version, final XMLElementWriter<T> writer, final T value) throws XMLStreamException {
+        // Fragments bypass the instrumentation of a deparse listener
+        final XMLExtendedStreamWriter target = streamWriter instanceof InstrumentingXMLStreamWriter ? ((InstrumentingXMLStreamWriter) streamWriter).getDelegate() : streamWriter;
+        if (! (target instanceof UTF8XMLStreamWriter)) {
+            writer.writeContent(streamWriter, value);
+            return;
+        }
+        final UTF8XMLStreamWriter utf8Writer = (UTF8XMLStreamWriter) target;
+        final UTF8XMLStreamWriter.Fragment fragment = fragments.get(key);
+        if (fragment != null && fragment.version == version && utf8Writer.fits(fragment)) {
+            hits.increment();
+            utf8Writer.replay(fragment);
+            return;
+        }
+        misses.increment();
+        if (utf8Writer.isCapturing()) {
+            // Captured as part of the enclosing fragment
+            writer.writeContent(streamWriter, value);
+            return;
+        }
+        utf8Writer.beginCapture();
+        try {
+            writer.writeContent(streamWriter, value);
+        } catch (XMLStreamException | RuntimeException | Error e) {
+            fragments.remove(key);
+            // Stop capturing without masking the failure of the writer
+            try {
+                utf8Writer.endCapture(version);
+            } catch (XMLStreamException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        final UTF8XMLStreamWriter.Fragment captured = utf8Writer.endCapture(version);
+        if (captured != null) {
+            fragments.put(key, captured);
+        } else {
+            fragments.remove(key);
+        }
+    }
+
+    /**
+     * Discard the fragment of a key, if any, so that its writer runs on the next write.
+     *
+     * @param key the key
+     */
+    public void invalidate(final Object key) {
+        fragments.remove(key);
+    }
+
+    /**
+     * Discard all fragments.
+     */
+    public void clear() {
+        fragments.clear();
+    }
+
+    /**
+     * Get the number of writes which replayed a fragment.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of writes which ran their element writer.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+}
@@ -18,7 +18,15 @@
 
 package org.jboss.staxmapper;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.xml.namespace.QName;
@@ -49,7 +57,8 @@ public interface XMLMapper {
      *
      * It is recommended that supplier always creates new instance of the {@link XMLElementReader}
      * instead of caching and returning always same instance. This way unused parsers can get GC-ed
-     * when not needed.
+     * when not needed.  How long created readers are retained is determined by the
+     * {@link #setRootElementCache(XMLElementReaderCache) root element cache}.
      *
      */
     <T> void registerRootElement(QName name, Supplier<XMLElementReader<T>> supplier);
@@ -68,6 +77,32 @@ public interface XMLMapper {
         }
     }
 
+    /**
+     * Registers a root element associated with a known set of versioned namespaces, whose reader can be created from
+     * the specified factory.  The readers of each namespace are created and cached as if registered via
+     * {@link #registerRootElement(QName, Supplier)}.
+     * <p>
+     * If {@code fallback} is {@code true}, the root element is also recognized in any unregistered namespace whose URI
+     * differs from that of a registered namespace only in its trailing version, e.g. {@code urn:foo:2.4} given
+     * {@code urn:foo:2.3}.  Such an element is read by the reader of the nearest lower registered version, and shares
+     * its cached reader.  The default implementation registers the namespaces via
+     * {@link #registerRootElement(String, Set, Function)}, and throws {@link UnsupportedOperationException} if
+     * {@code fallback} is {@code true}.
+     *
+     * @param <T> the operating type of the reader
+     * @param <N> the namespace type
+     * @param localName the local name of the known root element
+     * @param namespaces a set of known namespaces for the specified the root element
+     * @param readerFactory a factory for creating an element reader for the specified the root element
+     * @param fallback whether to resolve unregistered versions to the nearest lower registered version
+     */
+    default <T, N extends Namespace & Versioned<IntVersion, N>> void registerRootElement(String localName, Set<N> namespaces, Function<N, XMLElementReader<T>> readerFactory, boolean fallback) {
+        if (fallback) {
+            throw new UnsupportedOperationException("Version fallback is not supported by " + getClass().getName());
+        }
+        registerRootElement(localName, namespaces, readerFactory);
+    }
+
     /**
      * Removes a {@link #registerRootElement(QName, XMLElementReader) previously registered root element}.
      *
@@ -90,6 +125,118 @@ public interface XMLMapper {
      */
     void unregisterRootAttribute(QName name);
 
+    /**
+     * Set the executor used to read nested elements concurrently via
+     * {@link XMLExtendedStreamReader#handleAny(Supplier, java.util.function.Consumer)}.  Each such element is
+     * buffered and read on the executor, for example a {@link java.util.concurrent.ForkJoinPool} or a virtual thread
+     * executor.  The registered readers for those elements must therefore tolerate being called concurrently.  The
+     * default implementation throws {@link UnsupportedOperationException} unless the executor is {@code null}.
+     *
+     * @param executor the executor, or {@code null} to read all nested elements on the calling thread (the default)
+     */
+    default void setExecutor(Executor executor) {
+        if (executor != null) {
+            throw new UnsupportedOperationException("Concurrent reading is not supported by " + getClass().getName());
+        }
+    }
+
+    /**
+     * Set the cache of readers created by the suppliers of registered root elements.  By default, readers are
+     * {@link XMLElementReaderCache#perDocument() cached for the duration of a single document}.  The default
+     * implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param cache the cache
+     */
+    default void setRootElementCache(XMLElementReaderCache cache) {
+        throw new UnsupportedOperationException("Root element caches are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Get the cache of readers created by the suppliers of registered root elements, e.g. to obtain its statistics.
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @return the cache
+     */
+    default XMLElementReaderCache getRootElementCache() {
+        throw new UnsupportedOperationException("Root element caches are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Register a resolver used to convert attribute values to constants of its enum type, replacing any resolver
+     * previously registered for that type.  The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param resolver the resolver
+     * @see XMLExtendedStreamReader#getAttributeValue(int, Class)
+     * @see XMLExtendedStreamReader#getListAttributeValue(int, Class)
+     */
+    default void registerEnumValueResolver(EnumValueResolver<?> resolver) {
+        throw new UnsupportedOperationException("Enum value resolvers are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Get the resolver used to convert attribute values to constants of the given enum type.  If none was registered,
+     * a resolver {@link EnumValueResolver#of(Class) by constant name} is created and kept for subsequent calls.  The
+     * default implementation creates a resolver by constant name on each call.
+     *
+     * @param type the enum type
+     * @param <E> the enum type
+     * @return the resolver
+     */
+    default <E extends Enum<E>> EnumValueResolver<E> getEnumValueResolver(Class<E> type) {
+        return EnumValueResolver.of(type);
+    }
+
+    /**
+     * Set the listener notified after each registered reader has read its element or attribute.  Without a listener,
+     * readers are not timed.  The default implementation throws {@link UnsupportedOperationException} unless the
+     * listener is {@code null}.
+     *
+     * @param listener the listener, or {@code null} to remove the listener (the default)
+     */
+    default void setParseListener(XMLParseListener listener) {
+        if (listener != null) {
+            throw new UnsupportedOperationException("Parse listeners are not supported by " + getClass().getName());
+        }
+    }
+
+    /**
+     * Register a snapshotter for an element, which makes parsing of that element incremental.  Whenever the element
+     * is {@linkplain XMLExtendedStreamReader#handleAny(Object) handled}, its content is digested, and if a previous
+     * parse of this mapper read the same content, the snapshot captured then is applied to the value instead of
+     * reading the element again.  The snapshots of all documents parsed successfully by this mapper are kept, up to a
+     * bound beyond which those least recently used are discarded.  The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param name the element name
+     * @param snapshotter the snapshotter
+     * @param <T> the type of the value the element is read into
+     */
+    default <T> void registerSnapshotter(QName name, XMLSnapshotter<T> snapshotter) {
+        throw new UnsupportedOperationException("Snapshotters are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Unregister the snapshotter for an element, if any.  The default implementation does nothing, since no
+     * snapshotter can be registered.
+     *
+     * @param name the element name
+     */
+    default void unregisterSnapshotter(QName name) {
+    }
+
+    /**
+     * Set the listener notified after each significant element of a document has been written.  Without a listener,
+     * writes are not instrumented.  The default implementation throws {@link UnsupportedOperationException} unless the
+     * listener is {@code null}.
+     *
+     * @param listener the listener, or {@code null} to remove the listener (the default)
+     */
+    default void setDeparseListener(XMLDeparseListener listener) {
+        if (listener != null) {
+            throw new UnsupportedOperationException("Deparse listeners are not supported by " + getClass().getName());
+        }
+    }
+
     /**
      * Parse a document.  The document must have a known, registered root element which can accept the given root object.
      *
@@ -100,7 +247,115 @@ public interface XMLMapper {
     void parseDocument(Object rootObject, XMLStreamReader reader) throws XMLStreamException;
 
     /**
-     * Format the element writer's output on to an XML stream writer.
+     * Parse a document from a file.  The encoding of the document is detected from its byte order mark or XML
+     * declaration, and large files are mapped into memory rather than read.  DTDs and external entities are not
+     * supported.  The default implementation reads the file and parses it with
+     * {@link #parseDocument(Object, XMLStreamReader)}.
+     *
+     * @param rootObject the root object to send in
+     * @param path the file from which the document should be read
+     * @throws XMLStreamException if an error occurs
+     */
+    default void parseDocument(Object rootObject, Path path) throws XMLStreamException {
+        parseDocument(rootObject, DocumentInput.createReader(DocumentInput.read(path), path.toUri().toString()));
+    }
+
+    /**
+     * Parse a document from bytes.  The encoding of the document is detected from its byte order mark or XML
+     * declaration.  DTDs and external entities are not supported.  The default implementation parses the bytes with
+     * {@link #parseDocument(Object, XMLStreamReader)}.
+     *
+     * @param rootObject the root object to send in
+     * @param document the document
+     * @throws XMLStreamException if an error occurs
+     */
+    default void parseDocument(Object rootObject, byte[] document) throws XMLStreamException {
+        parseDocument(rootObject, DocumentInput.createReader(ByteBuffer.wrap(document), null));
+    }
+
+    /**
+     * Parse a document from the remaining bytes of a buffer, without changing the position of the buffer.  The encoding
+     * of the document is detected from its byte order mark or XML declaration.  DTDs and external entities are not
+     * supported.  The default implementation parses the buffer with {@link #parseDocument(Object, XMLStreamReader)}.
+     *
+     * @param rootObject the root object to send in
+     * @param document the document
+     * @throws XMLStreamException if an error occurs
+     */
+    default void parseDocument(Object rootObject, ByteBuffer document) throws XMLStreamException {
+        parseDocument(rootObject, DocumentInput.createReader(document, null));
+    }
+
+    /**
+     * Parse a document asynchronously, on a new virtual thread if the runtime supports them, or else on the
+     * {@linkplain java.util.concurrent.ForkJoinPool#commonPool() common pool}.  Any number of documents may be parsed
+     * concurrently by one mapper; each has its own {@linkplain XMLElementReaderCache#forDocument() reader cache}, so
+     * they do not affect each other.
+     *
+     * @param rootObject the root object to send in
+     * @param source the document
+     * @param <T> the type of the root object
+     * @return a future completed with the root object once the document is parsed, or exceptionally with the
+     *         {@link XMLStreamException} if parsing failed
+     */
+    default <T> CompletableFuture<T> parseDocumentAsync(T rootObject, XMLDocumentSource source) {
+        return parseDocumentAsync(rootObject, source, XMLMapperImpl.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Parse a document asynchronously on the given executor.  The default implementation runs a blocking parse of the
+     * document on the executor.
+     *
+     * @param rootObject the root object to send in
+     * @param source the document
+     * @param executor the executor
+     * @param <T> the type of the root object
+     * @return a future completed with the root object once the document is parsed
+     * @see #parseDocumentAsync(Object, XMLDocumentSource)
+     */
+    default <T> CompletableFuture<T> parseDocumentAsync(T rootObject, XMLDocumentSource source, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                source.parse(this, rootObject);
+                return rootObject;
+            } catch (XMLStreamException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Parse documents concurrently, on virtual threads if the runtime supports them.
+     *
+     * @param documents the root object to send in for each document
+     * @param <T> the type of the root objects
+     * @return the future of each document, in the iteration order of the given map
+     * @see #parseDocumentAsync(Object, XMLDocumentSource)
+     */
+    default <T> Map<XMLDocumentSource, CompletableFuture<T>> parseDocumentsAsync(Map<XMLDocumentSource, T> documents) {
+        return parseDocumentsAsync(documents, XMLMapperImpl.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Parse documents concurrently on the given executor.
+     *
+     * @param documents the root object to send in for each document
+     * @param executor the executor
+     * @param <T> the type of the root objects
+     * @return the future of each document, in the iteration order of the given map
+     * @see #parseDocumentAsync(Object, XMLDocumentSource)
+     */
+    default <T> Map<XMLDocumentSource, CompletableFuture<T>> parseDocumentsAsync(Map<XMLDocumentSource, T> documents, Executor executor) {
+        final Map<XMLDocumentSource, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (Map.Entry<XMLDocumentSource, T> entry : documents.entrySet()) {
+            futures.put(entry.getKey(), parseDocumentAsync(entry.getValue(), entry.getKey(), executor));
+        }
+        return futures;
+    }
+
+    /**
+     * Format the element writer's output on to an XML stream writer.  A {@link UTF8XMLStreamWriter} is written to
+     * directly, since it formats its own output.
      *
      * @param writer the element writer
      * @param rootObject the root object to send in
@@ -109,6 +364,61 @@ public interface XMLMapper {
      */
     void deparseDocument(XMLElementWriter<?> writer, Object rootObject, XMLStreamWriter streamWriter) throws XMLStreamException;
 
+    /**
+     * Format the element writer's output as UTF-8 on to an output stream, using a {@link UTF8XMLStreamWriter}.  The
+     * output is flushed, but the stream is not closed.
+     *
+     * @param writer the element writer
+     * @param rootObject the root object to send in
+     * @param stream the output stream
+     * @throws XMLStreamException if an exception occurs
+     */
+    default void deparseDocument(XMLElementWriter<?> writer, Object rootObject, OutputStream stream) throws XMLStreamException {
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(stream);
+        deparseDocument(writer, rootObject, streamWriter);
+        streamWriter.flush();
+    }
+
+    /**
+     * Get the table of known names of this mapper, in which readers register the names of their elements and
+     * attributes with the IDs to be returned by {@link XMLExtendedStreamReader#getLocalNameId()} and
+     * {@link XMLExtendedStreamReader#getAttributeLocalNameId(int)}.  The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @return the symbol table
+     */
+    default XMLSymbolTable getSymbolTable() {
+        throw new UnsupportedOperationException("Symbol tables are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Enable a binary cache of the documents {@linkplain #parseDocument(Object, Path) parsed from files}.  The first
+     * parse of a file writes the tokens of its root element to a file next to it, named after it with the suffix
+     * {@code .stxc} and keyed by the SHA-256 digest of its content.  Later parses of the unchanged file replay those
+     * tokens instead of parsing the file again.  A cache which does not match the file, or whose format is not
+     * recognized, is ignored and replaced.  Content of the document outside of its root element is not cached.  The
+     * default implementation throws {@link UnsupportedOperationException} unless the cache is disabled.
+     *
+     * @param enabled {@code true} to use the cache, {@code false} to parse files directly (the default)
+     */
+    default void setDocumentCache(boolean enabled) {
+        if (enabled) {
+            throw new UnsupportedOperationException("Document caches are not supported by " + getClass().getName());
+        }
+    }
+
+    /**
+     * Open a session which reuses reader and writer state across the documents parsed and written through it, for
+     * callers handling many small documents.  The session is confined to one thread at a time.  The default
+     * implementation returns a session which calls the methods of this mapper for each document, without reusing any
+     * state.
+     *
+     * @return the new session
+     */
+    default XMLMapperSession openSession() {
+        return new DelegatingXMLMapperSession(this);
+    }
+
     /**
      * Format the content writer's output on to an XML stream writer.
      *
@@ -22,8 +22,16 @@ import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
 import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
 import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
@@ -34,23 +42,61 @@ import javax.xml.stream.XMLStreamWriter;
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class XMLMapperImpl implements XMLMapper {
-    private final ConcurrentMap<QName, XMLElementReader<?>> rootElements = new ConcurrentHashMap<>();
-    private final ConcurrentMap<QName, Supplier<? extends XMLElementReader<?>>> rootElementsSuppliers = new ConcurrentHashMap<>();
-    private final ConcurrentMap<QName, XMLAttributeReader<?>> rootAttributes = new ConcurrentHashMap<>();
+    // Runs documents parsed asynchronously without an explicit executor
+    static final Executor DEFAULT_EXECUTOR = defaultExecutor();
+
+    private final NameIndex<RootElement> rootElements = new NameIndex<>();
+    // Versioned root elements by the namespace URI prefix preceding the version and local name
+    private final NameIndex<VersionIndex<RootElement>> versionIndexes = new NameIndex<>();
+    private final NameIndex<XMLAttributeReader<?>> rootAttributes = new NameIndex<>();
+    private volatile XMLElementReaderCache rootElementCache = XMLElementReaderCache.perDocument();
+    private volatile Executor executor;
+    private final ConcurrentMap<Class<?>, EnumValueResolver<?>> enumValueResolvers = new ConcurrentHashMap<>();
+    private volatile XMLParseListener parseListener;
+    private volatile XMLDeparseListener deparseListener;
+    private final NameIndex<XMLSnapshotter<?>> snapshotters = new NameIndex<>();
+    private final SnapshotCache.Store snapshots = new SnapshotCache.Store();
+    private volatile boolean documentCache;
+    private final XMLSymbolTable symbolTable = new XMLSymbolTable();
 
     public <T> void registerRootElement(QName name, XMLElementReader<T> reader) {
         registerRootElement(name, () -> reader);
     }
 
     public <T> void registerRootElement(QName name, Supplier<XMLElementReader<T>> supplier) {
-        if (rootElementsSuppliers.putIfAbsent(name, supplier) != null) {
+        if (rootElements.putIfAbsent(name, new RootElement(name, supplier)) != null) {
             throw new IllegalArgumentException("Root element supplier for " + name + " already registered");
         }
     }
 
+    @Override
+    public <T, N extends Namespace & Versioned<IntVersion, N>> void registerRootElement(String localName, Set<N> namespaces, Function<N, XMLElementReader<T>> readerFactory, boolean fallback) {
+        for (N namespace : namespaces) {
+            final String namespaceURI = namespace.getUri();
+            final QName name = new QName(namespaceURI, localName);
+            final RootElement element = new RootElement(name, () -> readerFactory.apply(namespace));
+            if (rootElements.putIfAbsent(name, element) != null) {
+                throw new IllegalArgumentException("Root element supplier for " + name + " already registered");
+            }
+            final int prefixLength = fallback ? VersionIndex.prefixLength(namespaceURI) : -1;
+            if (prefixLength >= 0) {
+                versionIndexes.computeIfAbsent(new QName(namespaceURI.substring(0, prefixLength), localName), key -> new VersionIndex<>()).add(namespace.getVersion(), namespaceURI, element);
+            }
+        }
+    }
+
     @Override
     public void unregisterRootElement(QName name) {
         rootElements.remove(name);
+        rootElementCache.remove(name);
+        final String namespaceURI = name.getNamespaceURI();
+        final int prefixLength = VersionIndex.prefixLength(namespaceURI);
+        if (prefixLength >= 0) {
+            final VersionIndex<RootElement> index = versionIndexes.get(namespaceURI.substring(0, prefixLength), name.getLocalPart());
+            if (index != null) {
+                index.remove(namespaceURI);
+            }
+        }
     }
 
     public void registerRootAttribute(QName name, XMLAttributeReader<?> reader) {
@@ -64,16 +110,134 @@ final class XMLMapperImpl implements XMLMapper {
         rootAttributes.remove(name);
     }
 
+    @Override
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void setRootElementCache(final XMLElementReaderCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache is null");
+        }
+        rootElementCache = cache;
+    }
+
+    @Override
+    public XMLElementReaderCache getRootElementCache() {
+        return rootElementCache;
+    }
+
+    @Override
+    public void registerEnumValueResolver(final EnumValueResolver<?> resolver) {
+        enumValueResolvers.put(resolver.getType(), resolver);
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked" })
+    public <E extends Enum<E>> EnumValueResolver<E> getEnumValueResolver(final Class<E> type) {
+        EnumValueResolver<?> resolver = enumValueResolvers.get(type);
+        if (resolver == null) {
+            resolver = enumValueResolvers.computeIfAbsent(type, t -> EnumValueResolver.of(type));
+        }
+        return (EnumValueResolver<E>) resolver;
+    }
+
+    @Override
+    public <T> void registerSnapshotter(final QName name, final XMLSnapshotter<T> snapshotter) {
+        if (snapshotters.putIfAbsent(name, snapshotter) != null) {
+            throw new IllegalArgumentException("Snapshotter for " + name + " already registered");
+        }
+    }
+
+    @Override
+    public void unregisterSnapshotter(final QName name) {
+        snapshotters.remove(name);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    XMLSnapshotter<Object> getSnapshotter(final String namespaceURI, final String localName) {
+        return (XMLSnapshotter<Object>) snapshotters.get(namespaceURI, localName);
+    }
+
+    @Override
+    public XMLSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    @Override
+    public void setDocumentCache(final boolean enabled) {
+        documentCache = enabled;
+    }
+
+    @Override
+    public XMLMapperSession openSession() {
+        return new XMLMapperSessionImpl(this);
+    }
+
+    @Override
+    public void setParseListener(final XMLParseListener listener) {
+        parseListener = listener;
+    }
+
+    @Override
+    public void setDeparseListener(final XMLDeparseListener listener) {
+        deparseListener = listener;
+    }
+
     public void parseDocument(Object rootObject, XMLStreamReader reader) throws XMLStreamException {
+        parseDocument(rootObject, reader, null);
+    }
+
+    /**
+     * Parse a document, reusing the given extended stream reader if any.
+     */
+    void parseDocument(Object rootObject, XMLStreamReader reader, XMLExtendedStreamReaderImpl streamReader) throws XMLStreamException {
+        parseDocument(rootObject, reader, streamReader, false);
+    }
+
+    /**
+     * Parse a cached document, whose reader starts at its root element, reusing the given extended stream reader if any.
+     */
+    void parseBuffered(Object rootObject, BufferedXMLStreamReader reader, XMLExtendedStreamReaderImpl streamReader) throws XMLStreamException {
+        parseDocument(rootObject, reader, streamReader, true);
+    }
+
+    /**
+     * Parse a document file, through its cache if enabled, reusing the given extended stream reader if any.
+     */
+    void parseDocument(Object rootObject, Path path, XMLExtendedStreamReaderImpl streamReader) throws XMLStreamException {
+        final ByteBuffer document = DocumentInput.read(path);
+        if (documentCache) {
+            parseBuffered(rootObject, DocumentCache.open(path, document), streamReader);
+        } else {
+            parseDocument(rootObject, DocumentInput.createReader(document, path.toUri().toString()), streamReader);
+        }
+    }
+
+    private void parseDocument(Object rootObject, XMLStreamReader reader, XMLExtendedStreamReaderImpl streamReader, boolean atRoot) throws XMLStreamException {
         try {
-            reader.require(START_DOCUMENT, null, null);
-            reader.nextTag();
+            if (! atRoot) {
+                reader.require(START_DOCUMENT, null, null);
+                reader.nextTag();
+            }
             reader.require(START_ELEMENT, null, null);
-            processNested(new XMLExtendedStreamReaderImpl(this, reader), rootObject);
+            final SnapshotCache snapshots = new SnapshotCache(this.snapshots);
+            final XMLElementReaderCache readerCache = rootElementCache.forDocument();
+            if (streamReader == null) {
+                streamReader = new XMLExtendedStreamReaderImpl(this, reader, readerCache, snapshots);
+            } else {
+                streamReader.reset(reader, readerCache, snapshots);
+            }
+            streamReader.processElement(rootObject);
             while (reader.next() != END_DOCUMENT) {
             }
+            snapshots.commit();
             reader.close();
-            rootElements.clear(); //clear the parsers cache
         } finally {
             try {
                 reader.close();
@@ -83,8 +247,48 @@ final class XMLMapperImpl implements XMLMapper {
         }
     }
 
+    @Override
+    public void parseDocument(final Object rootObject, final Path path) throws XMLStreamException {
+        parseDocument(rootObject, path, null);
+    }
+
     public void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final XMLStreamWriter streamWriter) throws XMLStreamException {
-        doDeparse(writer, rootObject, new FormattingXMLStreamWriter(streamWriter));
+        doDeparse(writer, rootObject, instrumented(formatting(streamWriter)));
+    }
+
+    @Override
+    public void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final OutputStream stream) throws XMLStreamException {
+        deparseDocument(writer, rootObject, new UTF8XMLStreamWriter(stream));
+    }
+
+    /**
+     * Format the element writer's output on to the given UTF-8 stream writer, then flush it.
+     */
+    void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final UTF8XMLStreamWriter streamWriter) throws XMLStreamException {
+        doDeparse(writer, rootObject, instrumented(streamWriter));
+        streamWriter.flush();
+    }
+
+    /**
+     * Format the element writer's output on to an XML stream writer, through the given formatting writer reset to it.
+     */
+    void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final XMLStreamWriter streamWriter, final FormattingXMLStreamWriter formattingWriter) throws XMLStreamException {
+        if (streamWriter instanceof UTF8XMLStreamWriter) {
+            doDeparse(writer, rootObject, instrumented((UTF8XMLStreamWriter) streamWriter));
+        } else {
+            formattingWriter.reset(streamWriter);
+            doDeparse(writer, rootObject, instrumented(formattingWriter));
+        }
+    }
+
+    private XMLExtendedStreamWriter instrumented(final XMLExtendedStreamWriter streamWriter) {
+        final XMLDeparseListener listener = deparseListener;
+        return listener == null ? streamWriter : new InstrumentingXMLStreamWriter(streamWriter, listener);
+    }
+
+    private static XMLExtendedStreamWriter formatting(final XMLStreamWriter streamWriter) {
+        // Already formats its own output
+        return streamWriter instanceof UTF8XMLStreamWriter ? (UTF8XMLStreamWriter) streamWriter : new FormattingXMLStreamWriter(streamWriter);
     }
 
     @SuppressWarnings( { "unchecked" })
@@ -101,30 +305,91 @@ final class XMLMapperImpl implements XMLMapper {
      */
     public void deparseDocument(XMLContentWriter contentWriter, XMLStreamWriter streamWriter) throws XMLStreamException {
         // todo: add validation based on the registered root elements?
-        contentWriter.writeContent(new FormattingXMLStreamWriter(streamWriter));
+        contentWriter.writeContent(instrumented(formatting(streamWriter)));
     }
 
-    private XMLElementReader<?> getParser(final QName name) {
-        return rootElements.computeIfAbsent(name, qName -> rootElementsSuppliers.getOrDefault(name, () -> null).get());
+    /**
+     * Get an executor starting a virtual thread per task if the runtime supports them, or else the common pool.
+     */
+    private static Executor defaultExecutor() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            return task -> factory.newThread(task).start();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return ForkJoinPool.commonPool();
+        }
     }
 
     @SuppressWarnings({"unchecked"})
-    <T> void processNested(final XMLExtendedStreamReader streamReader, final T value) throws XMLStreamException {
-        final QName name = streamReader.getName();
-        final XMLElementReader<T> reader = (XMLElementReader<T>) getParser(name);
+    <T> void processNested(final XMLExtendedStreamReaderImpl streamReader, final T value) throws XMLStreamException {
+        final RootElement element = getRootElement(streamReader.getNamespaceURI(), streamReader.getLocalName());
+        final XMLElementReader<T> reader = element == null ? null : (XMLElementReader<T>) streamReader.getReaderCache().getReader(element.name, element);
         if (reader == null) {
-            throw new XMLStreamException("Unexpected element '" + name + "'", streamReader.getLocation());
+            throw new XMLStreamException("Unexpected element '" + streamReader.getName() + "'", streamReader.getLocation());
         }
-        reader.readElement(streamReader, value);
+        final XMLParseListener listener = parseListener;
+        if (listener == null) {
+            reader.readElement(streamReader, value);
+        } else {
+            final long events = streamReader.getEventCount();
+            final long start = System.nanoTime();
+            reader.readElement(streamReader, value);
+            final long elapsed = System.nanoTime() - start;
+            listener.elementRead(element.name, streamReader.getDepth(), elapsed, streamReader.getEventCount() - events);
+        }
+    }
+
+    boolean hasRootElement(final String namespaceURI, final String localName) {
+        return getRootElement(namespaceURI, localName) != null;
+    }
+
+    private RootElement getRootElement(final String namespaceURI, final String localName) {
+        final RootElement element = rootElements.get(namespaceURI, localName);
+        if (element != null || namespaceURI == null) {
+            return element;
+        }
+        // Fall back to the nearest lower version of a versioned namespace
+        final int prefixLength = namespaceURI.lastIndexOf(':') + 1;
+        if (prefixLength == 0) {
+            return null;
+        }
+        final VersionIndex<RootElement> index = versionIndexes.get(namespaceURI.substring(0, prefixLength), localName);
+        return index == null ? null : index.resolve(namespaceURI);
     }
 
     @SuppressWarnings({ "unchecked" })
-    <T> void processAttribute(final XMLStreamReader streamReader, final int index, final T value) throws XMLStreamException {
-        final QName name = streamReader.getName();
-        final XMLAttributeReader<T> reader = (XMLAttributeReader<T>) rootAttributes.get(name);
+    <T> void processAttribute(final XMLExtendedStreamReaderImpl streamReader, final XMLStreamReader attributeReader, final int index, final T value) throws XMLStreamException {
+        final XMLAttributeReader<T> reader = (XMLAttributeReader<T>) rootAttributes.get(streamReader.getAttributeNamespace(index), streamReader.getAttributeLocalName(index));
         if (reader == null) {
-            throw new XMLStreamException("Unexpected attribute '" + name + "'", streamReader.getLocation());
+            throw new XMLStreamException("Unexpected attribute '" + streamReader.getAttributeName(index) + "'", streamReader.getLocation());
+        }
+        final XMLParseListener listener = parseListener;
+        if (listener == null) {
+            reader.readAttribute(attributeReader, index, value);
+        } else {
+            final long start = System.nanoTime();
+            reader.readAttribute(attributeReader, index, value);
+            final long elapsed = System.nanoTime() - start;
+            listener.attributeRead(streamReader.getAttributeName(index), streamReader.getDepth(), elapsed);
+        }
+    }
+
+    /**
+     * A registered root element, which creates its readers on behalf of the {@link XMLElementReaderCache}.
+     */
+    private static final class RootElement implements Function<QName, XMLElementReader<?>> {
+        final QName name;
+        private final Supplier<? extends XMLElementReader<?>> supplier;
+
+        RootElement(final QName name, final Supplier<? extends XMLElementReader<?>> supplier) {
+            this.name = name;
+            this.supplier = supplier;
+        }
+
+        @Override
+        public XMLElementReader<?> apply(final QName name) {
+            return supplier.get();
         }
-        reader.readAttribute(streamReader, index, value);
     }
 }
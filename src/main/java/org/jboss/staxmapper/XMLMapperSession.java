@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A session of an {@link XMLMapper}, which reuses its reader and writer state across the documents it parses and
+ * writes, rather than allocating it per document.  Parsing and writing behave exactly as the corresponding methods of
+ * the mapper.  A session is not thread safe and must be confined to one thread at a time, for example as a
+ * {@link ThreadLocal} or by taking it from a pool; a session used again while it is parsing or writing, e.g. from
+ * within a registered reader, falls back to fresh state for the nested document.
+ *
+ * @see XMLMapper#openSession()
+ */
+public interface XMLMapperSession extends AutoCloseable {
+
+    /**
+     * Parse a document.
+     *
+     * @param rootObject the root object to send in
+     * @param reader the reader from which the document should be read
+     * @throws XMLStreamException if an error occurs
+     * @see XMLMapper#parseDocument(Object, XMLStreamReader)
+     */
+    void parseDocument(Object rootObject, XMLStreamReader reader) throws XMLStreamException;
+
+    /**
+     * Parse a document from a file.
+     *
+     * @param rootObject the root object to send in
+     * @param path the file from which the document should be read
+     * @throws XMLStreamException if an error occurs
+     * @see XMLMapper#parseDocument(Object, Path)
+     */
+    void parseDocument(Object rootObject, Path path) throws XMLStreamException;
+
+    /**
+     * Parse a document from bytes.
+     *
+     * @param rootObject the root object to send in
+     * @param document the document
+     * @throws XMLStreamException if an error occurs
+     * @see XMLMapper#parseDocument(Object, byte[])
+     */
+    void parseDocument(Object rootObject, byte[] document) throws XMLStreamException;
+
+    /**
+     * Parse a document from the remaining bytes of a buffer, without changing the position of the buffer.
+     *
+     * @param rootObject the root object to send in
+     * @param document the document
+     * @throws XMLStreamException if an error occurs
+     * @see XMLMapper#parseDocument(Object, ByteBuffer)
+     */
+    void parseDocument(Object rootObject, ByteBuffer document) throws XMLStreamException;
+
+    /**
+     * Format the element writer's output on to an XML stream writer.
+     *
+     * @param writer the element writer
+     * @param rootObject the root object to send in
+     * @param streamWriter the stream writer
+     * @throws XMLStreamException if an exception occurs
+     * @see XMLMapper#deparseDocument(XMLElementWriter, Object, XMLStreamWriter)
+     */
+    void deparseDocument(XMLElementWriter<?> writer, Object rootObject, XMLStreamWriter streamWriter) throws XMLStreamException;
+
+    /**
+     * Format the element writer's output as UTF-8 on to an output stream.  The output is flushed, but the stream is
+     * not closed.
+     *
+     * @param writer the element writer
+     * @param rootObject the root object to send in
+     * @param stream the output stream
+     * @throws XMLStreamException if an exception occurs
+     * @see XMLMapper#deparseDocument(XMLElementWriter, Object, OutputStream)
+     */
+    void deparseDocument(XMLElementWriter<?> writer, Object rootObject, OutputStream stream) throws XMLStreamException;
+
+    /**
+     * Close this session, releasing its state.  A closed session can no longer be used.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A session which keeps one extended stream reader, formatting writer and UTF-8 writer, each reset for every document.
+ * Underlying StAX readers have no portable way to be reset, so those come from the shared input factory per document.
+ */
+final class XMLMapperSessionImpl implements XMLMapperSession {
+    private final XMLMapperImpl mapper;
+    private XMLExtendedStreamReaderImpl streamReader;
+    private FormattingXMLStreamWriter formattingWriter;
+    private UTF8XMLStreamWriter utf8Writer;
+    // Set while a document is parsed or written, so that reentrant calls use fresh state
+    private boolean inUse;
+    private boolean closed;
+
+    XMLMapperSessionImpl(final XMLMapperImpl mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final XMLStreamReader reader) throws XMLStreamException {
+        parse(streamReader -> mapper.parseDocument(rootObject, reader, streamReader));
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final Path path) throws XMLStreamException {
+        checkOpen();
+        parse(streamReader -> mapper.parseDocument(rootObject, path, streamReader));
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final byte[] document) throws XMLStreamException {
+        checkOpen();
+        parseDocument(rootObject, DocumentInput.createReader(ByteBuffer.wrap(document), null));
+    }
+
+    @Override
+    public void parseDocument(final Object rootObject, final ByteBuffer document) throws XMLStreamException {
+        checkOpen();
+        parseDocument(rootObject, DocumentInput.createReader(document, null));
+    }
+
+    /**
+     * Run a parse with the session's extended stream reader, or with a fresh one if that is in use.
+     */
+    private void parse(final DocumentParse parse) throws XMLStreamException {
+        if (acquire()) {
+            if (streamReader == null) {
+                // The mapper resets it before the document is read
+                streamReader = new XMLExtendedStreamReaderImpl(mapper, null, null, null);
+            }
+            try {
+                parse.parse(streamReader);
+            } finally {
+                // Do not retain the document or its readers
+                streamReader.reset(null, null, null);
+                inUse = false;
+            }
+        } else {
+            parse.parse(null);
+        }
+    }
+
+    @Override
+    public void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        if (acquire()) {
+            if (formattingWriter == null) {
+                formattingWriter = new FormattingXMLStreamWriter(streamWriter);
+            }
+            try {
+                mapper.deparseDocument(writer, rootObject, streamWriter, formattingWriter);
+            } finally {
+                formattingWriter.reset(null);
+                inUse = false;
+            }
+        } else {
+            mapper.deparseDocument(writer, rootObject, streamWriter);
+        }
+    }
+
+    @Override
+    public void deparseDocument(final XMLElementWriter<?> writer, final Object rootObject, final OutputStream stream) throws XMLStreamException {
+        if (acquire()) {
+            if (utf8Writer == null) {
+                utf8Writer = new UTF8XMLStreamWriter(stream);
+            } else {
+                utf8Writer.reset(stream);
+            }
+            try {
+                mapper.deparseDocument(writer, rootObject, utf8Writer);
+            } finally {
+                utf8Writer.reset(null);
+                inUse = false;
+            }
+        } else {
+            mapper.deparseDocument(writer, rootObject, stream);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        streamReader = null;
+        formattingWriter = null;
+        utf8Writer = null;
+    }
+
+    // private members
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+    }
+
+    private boolean acquire() {
+        checkOpen();
+        if (inUse) {
+            return false;
+        }
+        inUse = true;
+        return true;
+    }
+
+    private interface DocumentParse {
+        void parse(XMLExtendedStreamReaderImpl streamReader) throws XMLStreamException;
+    }
+}
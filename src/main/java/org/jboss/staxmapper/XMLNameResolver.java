@@ -0,0 +1,255 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.lang.reflect.Array;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Resolves the names of the elements or attributes of a {@link Namespace} to the constants of an enum type, and checks
+ * the attributes of an element for unexpected, duplicate and missing names.  The lookup table is built once, sized so
+ * that the names rarely collide while staying within a few slots per name, and attributes seen on the current element
+ * are tracked in a bitmask held by the reader, so the checks do not allocate per element.  The enum type may
+ * therefore have at most 64 constants.
+ *
+ * @param <E> the enum type
+ */
+public final class XMLNameResolver<E extends Enum<E>> {
+    // The table grows to avoid collisions up to this many slots per name, beyond which colliding names are probed
+    private static final int MAX_SLOTS_PER_NAME = 8;
+
+    private final Namespace namespace;
+    private final Class<E> type;
+    private final String[] names;
+    private final E[] values;
+    private final int mask;
+    // The XML name of each constant, by ordinal
+    private final String[] localNames;
+
+    private XMLNameResolver(final Namespace namespace, final Class<E> type, final Function<? super E, String> nameFunction) {
+        final E[] constants = type.getEnumConstants();
+        if (constants.length > Long.SIZE) {
+            throw new IllegalArgumentException(type.getCanonicalName() + " has more than " + Long.SIZE + " constants");
+        }
+        this.namespace = namespace;
+        this.type = type;
+        localNames = new String[constants.length];
+        int count = 0;
+        for (E constant : constants) {
+            final String name = nameFunction.apply(constant);
+            localNames[constant.ordinal()] = name;
+            if (name != null) {
+                count++;
+            }
+        }
+        int size = 4;
+        while (size < count * 2) {
+            size <<= 1;
+        }
+        final int maxSize = Math.max(size, count * MAX_SLOTS_PER_NAME);
+        while (size < maxSize && collides(size)) {
+            size <<= 1;
+        }
+        names = new String[size];
+        @SuppressWarnings("unchecked")
+        final E[] values = (E[]) Array.newInstance(type, size);
+        this.values = values;
+        mask = size - 1;
+        for (E constant : constants) {
+            final String name = localNames[constant.ordinal()];
+            if (name == null) {
+                continue;
+            }
+            int index = hash(name) & mask;
+            while (names[index] != null) {
+                if (names[index].equals(name)) {
+                    throw new IllegalArgumentException("Duplicate name '" + name + "' for " + values[index] + " and " + constant);
+                }
+                index = (index + 1) & mask;
+            }
+            names[index] = name;
+            values[index] = constant;
+        }
+    }
+
+    private boolean collides(final int size) {
+        final boolean[] used = new boolean[size];
+        for (String name : localNames) {
+            if (name != null) {
+                final int index = hash(name) & (size - 1);
+                if (used[index]) {
+                    return true;
+                }
+                used[index] = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create a resolver for the names of a namespace.  Constants whose name is {@code null}, such as a constant for
+     * unknown names, cannot be resolved by name.
+     *
+     * @param namespace the namespace of the elements
+     * @param type the enum type, with at most 64 constants
+     * @param names the function providing the local name of each constant
+     * @param <E> the enum type
+     * @return the resolver
+     */
+    public static <E extends Enum<E>> XMLNameResolver<E> of(Namespace namespace, Class<E> type, Function<? super E, String> names) {
+        return new XMLNameResolver<>(namespace, type, names);
+    }
+
+    /**
+     * Get the namespace of this resolver.
+     *
+     * @return the namespace
+     */
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Get the enum type of this resolver.
+     *
+     * @return the enum type
+     */
+    public Class<E> getType() {
+        return type;
+    }
+
+    /**
+     * Resolve a local name.
+     *
+     * @param localName the local name
+     * @return the constant, or {@code null} if the name is unknown
+     */
+    public E resolve(final String localName) {
+        final String[] names = this.names;
+        int index = hash(localName) & mask;
+        String name;
+        while ((name = names[index]) != null) {
+            if (name == localName || name.equals(localName)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Resolve the name of the current element, which must be in the namespace of this resolver.
+     *
+     * @param reader the reader, positioned on a {@code START_ELEMENT}
+     * @return the constant
+     * @throws XMLStreamException if the element is in another namespace or its name is unknown
+     */
+    public E getElement(final XMLExtendedStreamReader reader) throws XMLStreamException {
+        final String namespaceURI = reader.getNamespaceURI();
+        final E element = namespace.getUri().equals(namespaceURI == null ? "" : namespaceURI) ? resolve(reader.getLocalName()) : null;
+        if (element == null) {
+            throw new XMLStreamException("Unexpected element '" + reader.getName() + "'", reader.getLocation());
+        }
+        return element;
+    }
+
+    /**
+     * Resolve the name of an unqualified attribute of the current element, and record that it has been seen.
+     *
+     * @param reader the reader, positioned on a {@code START_ELEMENT}
+     * @param index the index of the attribute
+     * @return the constant
+     * @throws XMLStreamException if the attribute is qualified, its name is unknown, or it has already been seen
+     */
+    public E getAttribute(final XMLExtendedStreamReader reader, final int index) throws XMLStreamException {
+        final String namespaceURI = reader.getAttributeNamespace(index);
+        final E attribute = namespaceURI == null || namespaceURI.isEmpty() ? resolve(reader.getAttributeLocalName(index)) : null;
+        if (attribute == null) {
+            throw new XMLStreamException("Unexpected attribute '" + reader.getAttributeName(index) + "'", reader.getLocation());
+        }
+        final XMLExtendedStreamReaderImpl impl = impl(reader);
+        final long seen = impl.getSeenAttributes(this);
+        final long bit = 1L << attribute.ordinal();
+        if ((seen & bit) != 0) {
+            throw new XMLStreamException("Duplicate attribute '" + reader.getAttributeName(index) + "'", reader.getLocation());
+        }
+        impl.setSeenAttributes(this, seen | bit);
+        return attribute;
+    }
+
+    /**
+     * Determine whether an attribute of the current element has been seen by {@link #getAttribute}.
+     *
+     * @param reader the reader, positioned on a {@code START_ELEMENT}
+     * @param attribute the attribute
+     * @return {@code true} if the attribute has been seen
+     */
+    public boolean isSeen(final XMLExtendedStreamReader reader, final E attribute) {
+        return (impl(reader).getSeenAttributes(this) & (1L << attribute.ordinal())) != 0;
+    }
+
+    /**
+     * Get the bitmask of the given constants, to be computed once and passed to
+     * {@link #requireAttributes(XMLExtendedStreamReader, long)}.
+     *
+     * @param constants the constants
+     * @return the bitmask
+     */
+    @SafeVarargs
+    public final long mask(final E... constants) {
+        long mask = 0;
+        for (E constant : constants) {
+            mask |= 1L << constant.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Check that all of the given attributes of the current element have been seen by {@link #getAttribute}.
+     *
+     * @param reader the reader, positioned on a {@code START_ELEMENT}
+     * @param required the bitmask of the required attributes
+     * @throws XMLStreamException if any of them has not been seen
+     */
+    public void requireAttributes(final XMLExtendedStreamReader reader, final long required) throws XMLStreamException {
+        final long missing = required & ~impl(reader).getSeenAttributes(this);
+        if (missing != 0) {
+            final StringJoiner joiner = new StringJoiner(", ");
+            for (long remaining = missing; remaining != 0; remaining &= remaining - 1) {
+                joiner.add(localNames[Long.numberOfTrailingZeros(remaining)]);
+            }
+            throw new XMLStreamException("Missing required attribute(s): " + joiner, reader.getLocation());
+        }
+    }
+
+    private static XMLExtendedStreamReaderImpl impl(final XMLExtendedStreamReader reader) {
+        if (! (reader instanceof XMLExtendedStreamReaderImpl)) {
+            throw new IllegalArgumentException("Reader was not created by an XMLMapper");
+        }
+        return (XMLExtendedStreamReaderImpl) reader;
+    }
+
+    private static int hash(final String name) {
+        final int hash = name.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A listener which is notified after each registered reader has read its element or attribute, e.g. to find the
+ * readers which take the most time to parse a document.  Readers run on the parsing thread, unless they are
+ * {@linkplain XMLMapper#setExecutor(java.util.concurrent.Executor) executed concurrently}, in which case the listener
+ * is notified from the executing thread and must be thread safe.
+ * <p>
+ * Elapsed times and event counts of a reader include those of the nested elements it hands off, so that the readers
+ * of nested elements are reported before their enclosing reader.  Readers which fail are not reported.
+ *
+ * @see XMLMapper#setParseListener(XMLParseListener)
+ */
+public interface XMLParseListener {
+
+    /**
+     * Called after a registered element reader has read its element.
+     *
+     * @param name the registered name of the element
+     * @param depth the nesting depth of the element, where the root element has a depth of 1
+     * @param elapsedNanos the time taken by the reader, in nanoseconds
+     * @param events the number of times the reader advanced the stream
+     */
+    void elementRead(QName name, int depth, long elapsedNanos, long events);
+
+    /**
+     * Called after a registered attribute reader has read its attribute.  Attribute readers cannot advance the
+     * stream.
+     *
+     * @param name the name of the attribute
+     * @param depth the nesting depth of the element of the attribute, where the root element has a depth of 1
+     * @param elapsedNanos the time taken by the reader, in nanoseconds
+     */
+    void attributeRead(QName name, int depth, long elapsedNanos);
+}
@@ -0,0 +1,51 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.function.Consumer;
+
+/**
+ * Captures what reading an element contributes to its value, so that reading an unchanged element again can be
+ * replaced by applying the captured snapshot.  Used to parse a document incrementally, when it is parsed again after
+ * a partial change, e.g. on a configuration reload.
+ *
+ * @param <T> the type of the value elements are read into
+ * @see XMLMapper#registerSnapshotter(javax.xml.namespace.QName, XMLSnapshotter)
+ */
+public interface XMLSnapshotter<T> {
+
+    /**
+     * Mark the state of a value before an element is read into it.
+     *
+     * @param value the value
+     * @return the mark, which is passed to {@link #capture(Object, Object)}
+     */
+    Object mark(T value);
+
+    /**
+     * Capture what reading an element contributed to a value since it was marked.  The snapshot may be applied to
+     * the value of any later parse of the same element content, and possibly to several of them, so it must not retain
+     * mutable state of the given value.
+     *
+     * @param value the value
+     * @param mark the mark returned by {@link #mark(Object)} before the element was read
+     * @return the snapshot, which applies the same contribution to another value
+     */
+    Consumer<? super T> capture(T value, Object mark);
+}
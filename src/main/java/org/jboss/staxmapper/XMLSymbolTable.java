@@ -0,0 +1,255 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.staxmapper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A table of known element and attribute names of a {@link XMLMapper}, each with a small int ID, so that readers can
+ * {@code switch} on {@link XMLExtendedStreamReader#getLocalNameId()} rather than look names up in a map.  Names are
+ * registered once, typically when the readers are created, and are never removed.  Registered names are interned, so
+ * that the names of parsers which intern their names themselves are matched by identity.
+ * <p>
+ * IDs are chosen by the caller, e.g. constants or the ordinals of an enum, so that they can be used as {@code case}
+ * labels.  The table is shared by all readers of the mapper, so readers which register the same name must agree on
+ * its ID.
+ * <p>
+ * Lookups do not lock; registration copies the table, so it should not be done on a hot path.
+ */
+public final class XMLSymbolTable {
+    // The ID returned for a name which is not registered
+    public static final int UNKNOWN = -1;
+
+    private volatile Table table = new Table(new String[16], new int[16], new String[0]);
+
+    XMLSymbolTable() {
+    }
+
+    /**
+     * Register a name with the given ID, if it is not already registered.  Several names may have the same ID.
+     *
+     * @param name the name
+     * @param id the ID, which must not be negative
+     * @throws IllegalArgumentException if the ID is negative, or the name is already registered with another ID
+     */
+    public void register(final String name, final int id) {
+        register(new String[] { name }, new int[] { id });
+    }
+
+    /**
+     * Register the name of each constant of an enum with its ordinal as ID, if it is not already registered.  Constants
+     * whose name is {@code null} are skipped.
+     *
+     * @param type the enum type
+     * @param names the function returning the name of a constant
+     * @param <E> the enum type
+     * @throws IllegalArgumentException if a name is already registered with another ID
+     */
+    public <E extends Enum<E>> void register(final Class<E> type, final Function<? super E, String> names) {
+        final E[] constants = type.getEnumConstants();
+        final String[] keys = new String[constants.length];
+        final int[] ids = new int[constants.length];
+        int count = 0;
+        for (E constant : constants) {
+            final String name = names.apply(constant);
+            if (name != null) {
+                keys[count] = name;
+                ids[count++] = constant.ordinal();
+            }
+        }
+        register(Arrays.copyOf(keys, count), Arrays.copyOf(ids, count));
+    }
+
+    /**
+     * Register each of the given names, if it is not already registered.  Names which are not yet registered are
+     * assigned the next IDs, in order, starting at {@link #size()}.
+     *
+     * @param names the names
+     * @return the ID of each name
+     */
+    public synchronized int[] register(final String... names) {
+        final Table table = this.table;
+        final int[] ids = new int[names.length];
+        // A name repeated within the batch keeps its first ID
+        final Map<String, Integer> assigned = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            final int id = table.get(names[i]);
+            ids[i] = id != UNKNOWN ? id : assigned.computeIfAbsent(names[i], key -> assigned.size() + table.names.length);
+        }
+        register(names, ids);
+        return ids;
+    }
+
+    /**
+     * Get the ID of a name.
+     *
+     * @param name the name, or {@code null}
+     * @return the ID, or {@link #UNKNOWN} if the name is not registered
+     */
+    public int getId(final String name) {
+        return name == null ? UNKNOWN : table.get(name);
+    }
+
+    /**
+     * Get the name with the given ID.  If several names have the ID, the first registered is returned.
+     *
+     * @param id the ID
+     * @return the name, or {@code null} if no name has the ID
+     * @throws IndexOutOfBoundsException if the ID is not less than {@link #size()}
+     */
+    public String getName(final int id) {
+        return table.names[id];
+    }
+
+    /**
+     * Get the number of IDs in use, which is one greater than the highest registered ID.
+     *
+     * @return the number of IDs
+     */
+    public int size() {
+        return table.names.length;
+    }
+
+    // private members
+
+    private synchronized void register(final String[] names, final int[] ids) {
+        final Table table = this.table;
+        int count = 0;
+        int size = table.names.length;
+        for (int i = 0; i < names.length; i++) {
+            if (ids[i] < 0) {
+                throw new IllegalArgumentException("Negative ID " + ids[i] + " for " + names[i]);
+            }
+            final int id = table.get(names[i]);
+            if (id == UNKNOWN) {
+                count++;
+                size = Math.max(size, ids[i] + 1);
+            } else if (id != ids[i]) {
+                throw new IllegalArgumentException("Name " + names[i] + " already registered with ID " + id);
+            }
+        }
+        if (count > 0) {
+            this.table = table.with(names, ids, count, size);
+        }
+    }
+
+    /**
+     * An immutable open-addressing table of names.
+     */
+    private static final class Table {
+        private final String[] keys;
+        private final int[] ids;
+        private final int mask;
+        // by ID
+        final String[] names;
+
+        Table(final String[] keys, final int[] ids, final String[] names) {
+            this.keys = keys;
+            this.ids = ids;
+            this.mask = keys.length - 1;
+            this.names = names;
+        }
+
+        int get(final String name) {
+            final String[] keys = this.keys;
+            int slot = hash(name) & mask;
+            for (;;) {
+                final String key = keys[slot];
+                if (key == null) {
+                    return UNKNOWN;
+                }
+                // Parsers commonly intern their names, so identity usually matches
+                if (key == name || key.equals(name)) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * Copy this table with the given names added, rehashing it once.
+         *
+         * @param added the names, of which some may be registered already
+         * @param addedIds the ID of each name
+         * @param count the number of names which are not registered already
+         * @param size the number of IDs of the new table
+         * @return the new table
+         */
+        Table with(final String[] added, final int[] addedIds, final int count, final int size) {
+            final String[] names = Arrays.copyOf(this.names, size);
+            int entries = count;
+            for (String key : this.keys) {
+                if (key != null) {
+                    entries++;
+                }
+            }
+            // At most half full
+            int capacity = keys.length;
+            while (entries * 2 > capacity) {
+                capacity <<= 1;
+            }
+            final String[] keys = new String[capacity];
+            final int[] ids = new int[capacity];
+            final int mask = capacity - 1;
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] != null) {
+                    put(keys, ids, mask, this.keys[i], this.ids[i]);
+                }
+            }
+            for (int i = 0; i < added.length; i++) {
+                final String name = added[i].intern();
+                final int id = put(keys, ids, mask, name, addedIds[i]);
+                if (id == UNKNOWN) {
+                    if (names[addedIds[i]] == null) {
+                        names[addedIds[i]] = name;
+                    }
+                } else if (id != addedIds[i]) {
+                    throw new IllegalArgumentException("Name " + name + " registered with IDs " + id + " and " + addedIds[i]);
+                }
+            }
+            return new Table(keys, ids, names);
+        }
+
+        /**
+         * Add a name, unless it is present already.
+         *
+         * @return the ID of the name if it is present already, or else {@link #UNKNOWN}
+         */
+        private static int put(final String[] keys, final int[] ids, final int mask, final String name, final int id) {
+            int slot = hash(name) & mask;
+            while (keys[slot] != null) {
+                if (keys[slot].equals(name)) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = name;
+            ids[slot] = id;
+            return UNKNOWN;
+        }
+
+        private static int hash(final String name) {
+            // String caches its hash code, so this does not hash the characters again
+            final int hash = name.hashCode();
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
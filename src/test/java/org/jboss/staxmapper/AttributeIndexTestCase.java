@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates attribute lookups by name on wide elements, and the allocation-free attribute comparisons.
+ */
+public class AttributeIndexTestCase {
+
+    private static final String NAMESPACE = "urn:test:attributes";
+    private static final int WIDTH = 20;
+
+    private static String element(final String name, final String suffix) {
+        final StringBuilder builder = new StringBuilder("<").append(name).append(" xmlns:o=\"urn:other\"");
+        for (int i = 0; i < WIDTH; i++) {
+            builder.append(" a").append(i).append("=\"v").append(i).append(suffix).append('"');
+        }
+        return builder.append(" o:a0=\"other").append(suffix).append("\"/>").toString();
+    }
+
+    private static final String DOCUMENT = "<root xmlns=\"urn:test:attributes\">"
+            + "<wrapper>" + element("wide", "") + element("wide", "-second") + "<narrow a0=\"n\"/></wrapper>"
+            + "</root>";
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), TestDocuments.deferredChildren());
+        mapper.registerRootElement(new QName(NAMESPACE, "wrapper"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                while (reader.nextTag() != END_ELEMENT) {
+                    final String suffix = reader.getAttributeCount() == 1 ? "" : reader.getAttributeValue(null, "a1").substring(2);
+                    for (int i = WIDTH - 1; i >= 0; i--) {
+                        final String expected = "v" + i + suffix;
+                        final String actual = reader.getAttributeValue("", "a" + i);
+                        if (reader.getAttributeCount() > 1) {
+                            Assert.assertEquals(expected, actual);
+                            Assert.assertTrue(reader.attributeValueEquals(i, expected));
+                            Assert.assertFalse(reader.attributeValueEquals(i, expected + "x"));
+                            Assert.assertTrue(reader.attributeNameIs(i, "", "a" + i));
+                            Assert.assertTrue(reader.attributeNameIs(i, null, "a" + i));
+                            Assert.assertFalse(reader.attributeNameIs(i, "urn:other", "a" + i));
+                        } else if (i > 0) {
+                            Assert.assertNull(actual);
+                        }
+                    }
+                    Assert.assertNull(reader.getAttributeValue(null, "missing"));
+                    value.add(reader.getAttributeValue("urn:other", "a0"));
+                    value.add(reader.getAttributeValue("", "a0"));
+                    reader.discardRemainder();
+                }
+            }
+        });
+        return mapper;
+    }
+
+    @Test
+    public void testLookups() throws XMLStreamException {
+        final List<String> expected = new ArrayList<>();
+        expected.add("other");
+        expected.add("v0");
+        expected.add("other-second");
+        expected.add("v0-second");
+        expected.add(null);
+        expected.add("n");
+        Assert.assertEquals(expected, TestDocuments.parse(createMapper(), DOCUMENT));
+        // Replays the buffered elements, which compare values in place
+        final XMLMapper buffered = createMapper();
+        buffered.setExecutor(Runnable::run);
+        Assert.assertEquals(expected, TestDocuments.parse(buffered, DOCUMENT));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validates {@link XMLExtendedStreamReader#handleAny(java.util.function.Supplier, java.util.function.Consumer)}
+ * with and without an executor.
+ */
+public class ConcurrentHandleAnyTestCase {
+
+    private static final String NAMESPACE = "urn:test:concurrent";
+
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), TestDocuments.deferredChildren());
+        mapper.registerRootElement(new QName(NAMESPACE, "child"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                final String name = reader.getAttributeValue(null, "name");
+                if (name == null) {
+                    throw new XMLStreamException("Missing name", reader.getLocation());
+                }
+                value.add(name);
+                while (reader.nextTag() == START_ELEMENT) {
+                    value.add(name + "/" + reader.getElementText());
+                }
+            }
+        });
+        return mapper;
+    }
+
+    private static String document(final int children, final int invalid) {
+        final StringBuilder b = new StringBuilder();
+        b.append("<root xmlns=\"").append(NAMESPACE).append("\">\n");
+        for (int i = 0; i < children; i++) {
+            if (i == invalid) {
+                b.append("<child/>\n");
+            } else {
+                b.append("<child name=\"c").append(i).append("\"><item>a</item><!-- comment --><item>b</item></child>\n");
+            }
+        }
+        b.append("</root>");
+        return b.toString();
+    }
+
+    @Test
+    public void testDocumentOrder() throws XMLStreamException {
+        final XMLMapper mapper = createMapper();
+        final String document = document(50, -1);
+        final List<String> expected = TestDocuments.parse(mapper, document);
+        Assert.assertEquals(150, expected.size());
+        Assert.assertEquals("c0", expected.get(0));
+        Assert.assertEquals("c0/a", expected.get(1));
+        Assert.assertEquals("c49/b", expected.get(149));
+
+        mapper.setExecutor(executor);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(expected, TestDocuments.parse(mapper, document));
+        }
+    }
+
+    @Test
+    public void testErrorLocation() {
+        final XMLMapper mapper = createMapper();
+        mapper.setExecutor(executor);
+        final XMLStreamException e = TestDocuments.assertParseFails(mapper, document(20, 7));
+        Assert.assertEquals(9, e.getLocation().getLineNumber());
+    }
+
+    @Test
+    public void testCancelOnParentFailure() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                while (reader.nextTag() != END_ELEMENT) {
+                    if (reader.getLocalName().equals("fail")) {
+                        throw new XMLStreamException("Parent failed", reader.getLocation());
+                    }
+                    reader.<List<String>>handleAny(ArrayList::new, value::addAll);
+                }
+            }
+        });
+        final AtomicInteger read = new AtomicInteger();
+        mapper.registerRootElement(new QName(NAMESPACE, "child"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                read.incrementAndGet();
+                reader.discardRemainder();
+            }
+        });
+        // Holds deferred children until after the parse has failed
+        final List<Runnable> tasks = new ArrayList<>();
+        mapper.setExecutor(tasks::add);
+        final XMLStreamException e = TestDocuments.assertParseFails(mapper, "<root xmlns=\"" + NAMESPACE + "\"><child/><child/><fail/></root>");
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Parent failed"));
+        Assert.assertEquals(2, tasks.size());
+        tasks.forEach(Runnable::run);
+        Assert.assertEquals(0, read.get());
+    }
+}
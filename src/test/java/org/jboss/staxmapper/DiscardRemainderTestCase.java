@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates {@link XMLExtendedStreamReader#discardRemainder()} over plain and buffered readers.
+ */
+public class DiscardRemainderTestCase {
+
+    private static final String NAMESPACE = "urn:test:discard";
+
+    private static final String DOCUMENT = "<root xmlns=\"urn:test:discard\">"
+            + "<child name=\"a\"><first>1</first><!-- skipped --><deep><deeper x=\"y\">text<deepest/></deeper></deep>tail</child>"
+            + "<child name=\"b\"><first>2</first></child>"
+            + "<child name=\"c\"><first>3</first><ns:other xmlns:ns=\"urn:other\"><ns:more/></ns:other></child>"
+            + "</root>";
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), TestDocuments.deferredChildren());
+        mapper.registerRootElement(new QName(NAMESPACE, "child"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                final String name = reader.getAttributeValue(null, "name");
+                reader.nextTag();
+                value.add(name + "=" + reader.getElementText());
+                reader.discardRemainder();
+                reader.require(END_ELEMENT, NAMESPACE, "child");
+            }
+        });
+        mapper.registerRootElement(new QName(NAMESPACE, "nested"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                value.add("nested");
+                reader.discardRemainder();
+            }
+        });
+        return mapper;
+    }
+
+    private static long parse(final XMLMapper mapper, final String document, final List<String> value) throws XMLStreamException {
+        final AtomicLong events = new AtomicLong();
+        mapper.setParseListener(new XMLParseListener() {
+            @Override
+            public void elementRead(final QName name, final int depth, final long elapsedNanos, final long count) {
+                if (name.getLocalPart().equals("child")) {
+                    events.addAndGet(count);
+                }
+            }
+
+            @Override
+            public void attributeRead(final QName name, final int depth, final long elapsedNanos) {
+            }
+        });
+        mapper.parseDocument(value, TestDocuments.createReader(document));
+        return events.get();
+    }
+
+    @Test
+    public void testBufferedMatchesPlain() throws XMLStreamException {
+        final XMLMapper plain = createMapper();
+        final List<String> plainValue = new ArrayList<>();
+        final long plainEvents = parse(plain, DOCUMENT, plainValue);
+        Assert.assertEquals(Arrays.asList("a=1", "b=2", "c=3"), plainValue);
+
+        // Buffers each child, then reads it on the calling thread
+        final XMLMapper buffered = createMapper();
+        buffered.setExecutor(Runnable::run);
+        final List<String> bufferedValue = new ArrayList<>();
+        final long bufferedEvents = parse(buffered, DOCUMENT, bufferedValue);
+        Assert.assertEquals(plainValue, bufferedValue);
+        Assert.assertEquals(plainEvents, bufferedEvents);
+    }
+
+    @Test
+    public void testDeepDocument() throws XMLStreamException {
+        final StringBuilder builder = new StringBuilder("<root xmlns=\"urn:test:discard\"><nested>");
+        final int depth = 5000;
+        for (int i = 0; i < depth; i++) {
+            builder.append("<e>");
+        }
+        for (int i = 0; i < depth; i++) {
+            builder.append("</e>");
+        }
+        final String document = builder.append("</nested></root>").toString();
+        for (boolean executor : new boolean[] { false, true }) {
+            final XMLMapper mapper = createMapper();
+            if (executor) {
+                mapper.setExecutor(Runnable::run);
+            }
+            final List<String> value = new ArrayList<>();
+            parse(mapper, document, value);
+            Assert.assertEquals(Arrays.asList("nested"), value);
+        }
+    }
+}
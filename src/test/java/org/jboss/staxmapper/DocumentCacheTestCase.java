@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Validates the binary document cache enabled by {@link XMLMapper#setDocumentCache(boolean)}.
+ */
+public class DocumentCacheTestCase {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName("urn:test", "root"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                value.add(reader.getAttributeValue(null, "value"));
+                while (reader.nextTag() != END_ELEMENT) {
+                    final int line = reader.getLocation().getLineNumber();
+                    value.add(reader.getElementText() + "@" + line);
+                }
+            }
+        });
+        mapper.setDocumentCache(true);
+        return mapper;
+    }
+
+    private Path write(final String document) throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("document.xml");
+        Files.write(path, document.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static List<String> parse(final Path path) throws XMLStreamException {
+        final List<String> result = new ArrayList<>();
+        createMapper().parseDocument(result, path);
+        return result;
+    }
+
+    @Test
+    public void testCache() throws IOException, XMLStreamException {
+        final Path path = write("<?xml version=\"1.0\"?>\n<root xmlns=\"urn:test\" value=\"café\">\n<item>one</item>\n<item>two</item>\n</root>\n");
+        final Path cachePath = path.resolveSibling("document.xml.stxc");
+        final List<String> expected = Arrays.asList("café", "one@3", "two@4");
+        Assert.assertEquals(expected, parse(path));
+        Assert.assertTrue(Files.isRegularFile(cachePath));
+        final byte[] cache = Files.readAllBytes(cachePath);
+        Assert.assertEquals(expected, parse(path));
+        Assert.assertArrayEquals(cache, Files.readAllBytes(cachePath));
+        try (XMLMapperSession session = createMapper().openSession()) {
+            final List<String> result = new ArrayList<>();
+            session.parseDocument(result, path);
+            Assert.assertEquals(expected, result);
+        }
+    }
+
+    @Test
+    public void testChangedDocument() throws IOException, XMLStreamException {
+        final Path path = write("<root xmlns=\"urn:test\" value=\"a\"/>");
+        Assert.assertEquals(Arrays.asList("a"), parse(path));
+        write("<root xmlns=\"urn:test\" value=\"b\"/>");
+        Assert.assertEquals(Arrays.asList("b"), parse(path));
+        Assert.assertEquals(Arrays.asList("b"), parse(path));
+    }
+
+    @Test
+    public void testCorruptCache() throws IOException, XMLStreamException {
+        final Path path = write("<root xmlns=\"urn:test\" value=\"a\"><item>x</item></root>");
+        final Path cachePath = path.resolveSibling("document.xml.stxc");
+        Assert.assertEquals(Arrays.asList("a", "x@1"), parse(path));
+        final byte[] cache = Files.readAllBytes(cachePath);
+        // Damage the payload, then truncate it
+        final byte[] damaged = cache.clone();
+        damaged[damaged.length - 1] ^= 1;
+        Files.write(cachePath, damaged);
+        Assert.assertEquals(Arrays.asList("a", "x@1"), parse(path));
+        Assert.assertArrayEquals(cache, Files.readAllBytes(cachePath));
+        Files.write(cachePath, Arrays.copyOf(cache, cache.length / 2));
+        Assert.assertEquals(Arrays.asList("a", "x@1"), parse(path));
+        Assert.assertArrayEquals(cache, Files.readAllBytes(cachePath));
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testMalformedDocument() throws IOException, XMLStreamException {
+        try {
+            parse(write("<root xmlns=\"urn:test\" value=\"a\"></root><trailing/>"));
+        } finally {
+            Assert.assertFalse(Files.exists(folder.getRoot().toPath().resolve("document.xml.stxc")));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Validates parsing documents from files, byte arrays and buffers.
+ */
+public class DocumentInputTestCase {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName("urn:test", "root"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                value.add(reader.getAttributeValue(null, "value"));
+                while (reader.nextTag() != END_ELEMENT) {
+                    value.add(reader.getElementText());
+                }
+            }
+        });
+        return mapper;
+    }
+
+    private static String document(final String declaration) {
+        return declaration + "<root xmlns=\"urn:test\" value=\"café\"><item>über</item></root>";
+    }
+
+    private static List<String> parse(final byte[] document) throws XMLStreamException {
+        final List<String> result = new ArrayList<>();
+        createMapper().parseDocument(result, document);
+        return result;
+    }
+
+    @Test
+    public void testEncodings() throws XMLStreamException {
+        final List<String> expected = Arrays.asList("café", "über");
+        Assert.assertEquals(expected, parse(document("").getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(expected, parse(document("\ufeff<?xml version=\"1.0\"?>").getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(expected, parse(document("\ufeff<?xml version=\"1.0\" encoding=\"UTF-16\"?>").getBytes(StandardCharsets.UTF_16LE)));
+        Assert.assertEquals(expected, parse(document("\ufeff").getBytes(StandardCharsets.UTF_16BE)));
+        Assert.assertEquals(expected, parse(document("<?xml version=\"1.0\" encoding=\"UTF-16\"?>").getBytes(StandardCharsets.UTF_16LE)));
+        Assert.assertEquals(expected, parse(document("<?xml version=\"1.0\" encoding = 'ISO-8859-1' ?>").getBytes(StandardCharsets.ISO_8859_1)));
+        Assert.assertEquals(expected, parse(document("<?xml version=\"1.0\" encoding=\"windows-1252\"?>").getBytes(Charset.forName("windows-1252"))));
+        try {
+            parse(document("<?xml version=\"1.0\" encoding=\"no-such-encoding\"?>").getBytes(StandardCharsets.UTF_8));
+            Assert.fail("Expected exception");
+        } catch (XMLStreamException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("no-such-encoding"));
+        }
+    }
+
+    @Test
+    public void testByteBuffer() throws XMLStreamException {
+        final byte[] bytes = document("").getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 8);
+        buffer.put(new byte[8]).put(bytes).flip().position(8);
+        final List<String> result = new ArrayList<>();
+        createMapper().parseDocument(result, buffer);
+        Assert.assertEquals(Arrays.asList("café", "über"), result);
+        Assert.assertEquals(8, buffer.position());
+    }
+
+    @Test
+    public void testFiles() throws XMLStreamException, IOException {
+        final File small = folder.newFile("small.xml");
+        Files.write(small.toPath(), document("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").getBytes(StandardCharsets.UTF_8));
+        List<String> result = new ArrayList<>();
+        createMapper().parseDocument(result, small.toPath());
+        Assert.assertEquals(Arrays.asList("café", "über"), result);
+
+        // Large enough to be mapped
+        final StringBuilder b = new StringBuilder("<root xmlns=\"urn:test\" value=\"large\">");
+        while (b.length() < 1024 * 1024) {
+            b.append("<item>élément</item>\n");
+        }
+        b.append("</root>");
+        final File large = folder.newFile("large.xml");
+        Files.write(large.toPath(), b.toString().getBytes(StandardCharsets.UTF_8));
+        result = new ArrayList<>();
+        createMapper().parseDocument(result, large.toPath());
+        Assert.assertEquals("large", result.get(0));
+        Assert.assertEquals("élément", result.get(result.size() - 1));
+
+        try {
+            createMapper().parseDocument(new ArrayList<String>(), new File(folder.getRoot(), "missing.xml").toPath());
+            Assert.fail("Expected exception");
+        } catch (XMLStreamException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Failed to read "));
+        }
+    }
+}
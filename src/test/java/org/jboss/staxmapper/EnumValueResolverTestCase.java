@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link EnumValueResolver}.
+ */
+public class EnumValueResolverTestCase {
+
+    enum Mode {
+        UNKNOWN,
+        READ_ONLY,
+        READ_WRITE,
+        ;
+    }
+
+    @Test
+    public void testByName() {
+        final EnumValueResolver<Mode> resolver = EnumValueResolver.of(Mode.class);
+        for (Mode mode : Mode.values()) {
+            Assert.assertSame(mode, resolver.resolve(mode.name()));
+            Assert.assertSame(mode, resolver.resolve("x " + mode.name() + " y", 2, 2 + mode.name().length()));
+        }
+        final IllegalArgumentException e = Assert.assertThrows(IllegalArgumentException.class, () -> resolver.resolve("read-only"));
+        Assert.assertTrue(e.getMessage(), e.getMessage().endsWith(".read-only"));
+    }
+
+    @Test
+    public void testByXMLName() {
+        final EnumValueResolver<Mode> resolver = EnumValueResolver.of(Mode.class,
+                mode -> mode == Mode.UNKNOWN ? null : mode.name().toLowerCase(Locale.ENGLISH).replace('_', '-'), Mode.UNKNOWN);
+        Assert.assertSame(Mode.READ_ONLY, resolver.resolve("read-only"));
+        Assert.assertSame(Mode.READ_WRITE, resolver.resolve(new StringBuilder("read-write"), 0, 10));
+        Assert.assertSame(Mode.UNKNOWN, resolver.resolve("READ_ONLY"));
+        Assert.assertSame(Mode.UNKNOWN, resolver.resolve(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        EnumValueResolver.of(Mode.class, mode -> "same", null);
+    }
+
+    @Test
+    public void testAttributeConversion() throws XMLStreamException {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        Assert.assertSame(mapper.getEnumValueResolver(Mode.class), mapper.getEnumValueResolver(Mode.class));
+        mapper.registerEnumValueResolver(EnumValueResolver.of(Mode.class, mode -> mode.name().toLowerCase(Locale.ENGLISH), Mode.UNKNOWN));
+        mapper.registerRootElement(new QName("urn:test", "root"), new XMLElementReader<List<Mode>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<Mode> value) throws XMLStreamException {
+                value.add(reader.getAttributeValue(0, Mode.class));
+                value.addAll(reader.getListAttributeValue(1, Mode.class));
+                Assert.assertEquals(END_ELEMENT, reader.nextTag());
+            }
+        });
+        final List<Mode> result = TestDocuments.parse(mapper, "<root xmlns=\"urn:test\" mode=\"read_only\" modes=\" read_write\tread_only  other \"/>");
+        Assert.assertEquals(Arrays.asList(Mode.READ_ONLY, Mode.READ_WRITE, Mode.READ_ONLY, Mode.UNKNOWN), result);
+    }
+}
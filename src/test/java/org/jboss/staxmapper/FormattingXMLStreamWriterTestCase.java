@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates the exact output of {@link FormattingXMLStreamWriter}.
+ */
+public class FormattingXMLStreamWriterTestCase {
+
+    static final String EXPECTED = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "\n" +
+            "<hello xmlns:foo=\"http://foo\" xmlns:bar=\"http://bar\" test=\"this out\">\n" +
+            "    <foo:hello-two test2=\"this out2\">\n" +
+            "        <foo:helloblah test3=\"this out3\">\n" +
+            "             test \n" +
+            "            <bar:helloblah2 test4=\"this out4\"/>\n" +
+            "        </foo:helloblah>\n" +
+            "        <foo:inner/>\n" +
+            "    </foo:hello-two>\n" +
+            "    <foo:actually-empty></foo:actually-empty>\n" +
+            "\n" +
+            "    <!-- this is a comment -->\n" +
+            "\n" +
+            "    <!--\n" +
+            "      ~ This is a comment\n" +
+            "      ~ that spans multiple\n" +
+            "      ~ lines\n" +
+            "      -->\n" +
+            "    <foo/>\n" +
+            "    Some characters\n" +
+            "    Some multi-\n" +
+            "    line\n" +
+            "    characters\n" +
+            "</hello>";
+
+    @Test
+    public void testFormatting() throws XMLStreamException {
+        final StringWriter writer = new StringWriter();
+        new SimpleWrite1TestCase().writeContent(new FormattingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(writer)));
+        Assert.assertEquals(EXPECTED, writer.toString());
+    }
+
+    @Test
+    public void testManyAttributes() throws XMLStreamException {
+        final StringWriter writer = new StringWriter();
+        final XMLExtendedStreamWriter streamWriter = new FormattingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(writer));
+        final StringBuilder expected = new StringBuilder("\n<root xmlns=\"urn:test\">\n    <empty");
+        streamWriter.writeStartElement("root");
+        streamWriter.writeDefaultNamespace("urn:test");
+        streamWriter.writeStartElement("empty");
+        for (int i = 0; i < 40; i++) {
+            streamWriter.writeAttribute("a" + i, Integer.toString(i));
+            expected.append(" a").append(i).append("=\"").append(i).append('"');
+        }
+        streamWriter.writeAttribute("list", new String[] { "x", "y" });
+        streamWriter.writeAttribute("iterable", Arrays.asList("z", null, "w"));
+        expected.append(" list=\"x y\" iterable=\"z w\"/>\n</root>");
+        streamWriter.writeEndElement();
+        streamWriter.writeEndElement();
+        streamWriter.close();
+        Assert.assertEquals(expected.toString(), writer.toString());
+    }
+
+    @Test
+    public void testDeepIndentation() throws XMLStreamException {
+        final StringWriter writer = new StringWriter();
+        final XMLExtendedStreamWriter streamWriter = new FormattingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(writer));
+        final StringBuilder expected = new StringBuilder();
+        final int depth = 40;
+        for (int i = 0; i < depth; i++) {
+            streamWriter.writeStartElement("e");
+            expected.append('\n');
+            for (int j = 0; j < i; j++) {
+                expected.append("    ");
+            }
+            expected.append(i < depth - 1 ? "<e>" : "<e/>");
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            streamWriter.writeEndElement();
+            if (i < depth - 1) {
+                expected.append('\n');
+                for (int j = 0; j < i; j++) {
+                    expected.append("    ");
+                }
+                expected.append("</e>");
+            }
+        }
+        streamWriter.close();
+        Assert.assertEquals(expected.toString(), writer.toString());
+    }
+}
@@ -105,4 +105,40 @@ public class IntVersionTestCase {
         Assert.assertNotEquals(new IntVersion(1).hashCode(), new IntVersion(0, 1).hashCode());
         Assert.assertNotEquals(new IntVersion(1).hashCode(), new IntVersion(2).hashCode());
     }
+
+    @Test
+    public void parse() {
+        Assert.assertEquals(new IntVersion(20), IntVersion.parse("urn:jboss:domain:20.0"));
+        Assert.assertEquals(new IntVersion(1, 2, 3), IntVersion.parse("urn:wildfly:foo:1.2.3"));
+        Assert.assertEquals(new IntVersion(1, 2, 3, 4, 5), IntVersion.parse("1.2.3.4.5"));
+        // Parsed versions are cached by URI
+        Assert.assertSame(IntVersion.parse("urn:jboss:domain:20.0"), IntVersion.parse("urn:jboss:domain:20.0"));
+        for (String uri : new String[] { "urn:jboss:domain", "urn:jboss:domain:", "urn:foo:1..2", "urn:foo:1.", "urn:foo:.1", "urn:foo:1.x", "urn:foo:99999999999" }) {
+            Assert.assertThrows(uri, IllegalArgumentException.class, () -> IntVersion.parse(uri));
+        }
+    }
+
+    @Test
+    public void packed() {
+        // Compare versions which fit in the packed form with those which do not
+        IntVersion small = new IntVersion(1, 0x7fff);
+        IntVersion large = new IntVersion(1, 0x8000);
+        IntVersion longer = new IntVersion(1, 0x7fff, 0, 0, 1);
+        IntVersion negative = new IntVersion(1, -1);
+
+        Assert.assertTrue(small.compareTo(large) < 0);
+        Assert.assertTrue(large.compareTo(small) > 0);
+        Assert.assertTrue(small.compareTo(longer) < 0);
+        Assert.assertTrue(longer.compareTo(small) > 0);
+        Assert.assertTrue(negative.compareTo(new IntVersion(1)) < 0);
+        Assert.assertTrue(new IntVersion(1).compareTo(negative) > 0);
+        Assert.assertTrue(new IntVersion(0x7fff, 0x7fff, 0x7fff, 0x7fff).compareTo(new IntVersion(0x7fff, 0x7fff, 0x7fff, 0x7ffe)) > 0);
+
+        Assert.assertEquals(large, new IntVersion(1, 0x8000, 0));
+        Assert.assertEquals(longer, new IntVersion(1, 0x7fff, 0, 0, 1, 0));
+        Assert.assertNotEquals(small, large);
+        Assert.assertEquals(large.hashCode(), new IntVersion(1, 0x8000, 0).hashCode());
+        Assert.assertEquals("1.32768", large.toString());
+        Assert.assertSame(large.toString(), large.toString());
+    }
 }
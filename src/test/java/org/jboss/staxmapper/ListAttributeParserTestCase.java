@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ListAttributeParser}.
+ */
+public class ListAttributeParserTestCase {
+
+    @Test
+    public void parseInts() {
+        Assert.assertArrayEquals(new int[0], ListAttributeParser.parseInts(""));
+        Assert.assertArrayEquals(new int[0], ListAttributeParser.parseInts(" \t\r\n"));
+        Assert.assertArrayEquals(new int[] { 1, -2, 3, Integer.MAX_VALUE, Integer.MIN_VALUE }, ListAttributeParser.parseInts("\n 1\t-2  +3\r\n2147483647 -2147483648 "));
+        for (String invalid : new String[] { "2147483648", "-2147483649", "1x", "-", "+", "1-2" }) {
+            Assert.assertThrows(invalid, NumberFormatException.class, () -> ListAttributeParser.parseInts(invalid));
+        }
+    }
+
+    @Test
+    public void parseLongs() {
+        Assert.assertArrayEquals(new long[0], ListAttributeParser.parseLongs(""));
+        Assert.assertArrayEquals(new long[] { 1L, -2L, Long.MAX_VALUE, Long.MIN_VALUE }, ListAttributeParser.parseLongs("1 -2\t9223372036854775807\n-9223372036854775808"));
+        for (String invalid : new String[] { "9223372036854775808", "-9223372036854775809", "1.0" }) {
+            Assert.assertThrows(invalid, NumberFormatException.class, () -> ListAttributeParser.parseLongs(invalid));
+        }
+    }
+
+    @Test
+    public void parseLongList() {
+        final int count = 100000;
+        final StringBuilder b = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            b.append(i).append(' ');
+        }
+        final int[] ints = ListAttributeParser.parseInts(b.toString());
+        Assert.assertEquals(count, ints.length);
+        Assert.assertEquals(count - 1, ints[count - 1]);
+    }
+
+    @Test
+    public void parseDoubles() {
+        final String[] values = { "0", "-0", "1", "1.5", ".5", "1.", "-12.375", "1e3", "1E-3", "6.02214076e23", "1.7976931348623157E308",
+            "4.9E-324", "0.1", "0.30000000000000004", "123456789012345678901234567890", "3.14159265358979323846", "1e-400" };
+        final StringBuilder b = new StringBuilder();
+        for (String value : values) {
+            b.append(value).append("  ");
+        }
+        final double[] doubles = ListAttributeParser.parseDoubles(b.toString());
+        Assert.assertEquals(values.length, doubles.length);
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertEquals(values[i], Double.doubleToLongBits(Double.parseDouble(values[i])), Double.doubleToLongBits(doubles[i]));
+        }
+        Assert.assertArrayEquals(new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN }, ListAttributeParser.parseDoubles("INF -INF NaN"), 0);
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            final double expected = i % 2 == 0 ? random.nextDouble() * 1000 : Math.round(random.nextDouble() * 1000000) / 1000.0;
+            Assert.assertEquals(expected, ListAttributeParser.parseDoubles(Double.toString(expected))[0], 0);
+        }
+        for (String invalid : new String[] { "1x", "-", "e5", "1e", "1.2.3", ".", "+.e1", "1.5f", "1d", "Infinity", "-Infinity", "+NaN", "0x1p3",
+            "12345678901234567890f", "1e12345x", "1e+" }) {
+            Assert.assertThrows(invalid, NumberFormatException.class, () -> ListAttributeParser.parseDoubles(invalid));
+        }
+    }
+
+    @Test
+    public void parseBooleans() {
+        Assert.assertArrayEquals(new boolean[] { true, false, true, false }, ListAttributeParser.parseBooleans(" true\tfalse\n1 0 "));
+        final IllegalArgumentException e = Assert.assertThrows(IllegalArgumentException.class, () -> ListAttributeParser.parseBooleans("true TRUE"));
+        Assert.assertEquals("Invalid boolean value \"TRUE\"", e.getMessage());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates {@link XMLMapper#parseDocumentsAsync(Map)} and its variants.
+ */
+public class ParseDocumentAsyncTestCase {
+
+    private static final String NAMESPACE = "urn:test:async";
+
+    private final AtomicInteger suppliedReaders = new AtomicInteger();
+
+    private XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), () -> {
+            suppliedReaders.incrementAndGet();
+            return TestDocuments.namedItems();
+        });
+        return mapper;
+    }
+
+    private static XMLDocumentSource document(final int i) {
+        return XMLDocumentSource.of(("<root xmlns=\"urn:test:async\" name=\"d" + i + "\"><item>" + i + "</item></root>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testParseDocuments() {
+        final XMLMapper mapper = createMapper();
+        final Map<XMLDocumentSource, List<String>> documents = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            documents.put(document(i), new ArrayList<>());
+        }
+        final Map<XMLDocumentSource, CompletableFuture<List<String>>> futures = mapper.parseDocumentsAsync(documents);
+        Assert.assertEquals(new ArrayList<>(documents.keySet()), new ArrayList<>(futures.keySet()));
+        int i = 0;
+        for (Map.Entry<XMLDocumentSource, CompletableFuture<List<String>>> entry : futures.entrySet()) {
+            final List<String> result = entry.getValue().join();
+            Assert.assertSame(documents.get(entry.getKey()), result);
+            Assert.assertEquals(Arrays.asList("d" + i, String.valueOf(i++)), result);
+        }
+        // The default cache creates readers per document
+        Assert.assertEquals(50, suppliedReaders.get());
+    }
+
+    @Test
+    public void testExecutor() throws InterruptedException {
+        final XMLMapper mapper = createMapper();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<String> value = new ArrayList<>();
+            Assert.assertSame(value, mapper.parseDocumentAsync(value, document(1), executor).join());
+            Assert.assertEquals(Arrays.asList("d1", "1"), value);
+            final CompletableFuture<List<String>> failed = mapper.parseDocumentAsync(new ArrayList<>(), XMLDocumentSource.of("<other/>".getBytes(StandardCharsets.UTF_8)), executor);
+            final CompletionException e = Assert.assertThrows(CompletionException.class, failed::join);
+            Assert.assertTrue(e.getCause() instanceof XMLStreamException);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Assert;
+
+/**
+ * The fixture shared by the test cases which parse small documents into a list.
+ */
+final class TestDocuments {
+
+    private TestDocuments() {
+    }
+
+    /**
+     * Get a reader which hands each child element of its element to the mapper.
+     *
+     * @param <T> the value type
+     * @return the reader
+     */
+    static <T> XMLElementReader<T> children() {
+        return (reader, value) -> {
+            while (reader.nextTag() != END_ELEMENT) {
+                reader.handleAny(value);
+            }
+        };
+    }
+
+    /**
+     * Get a reader which hands each child element of its element to the mapper with a list of its own, which is added
+     * to the value in document order, so that the children may be read by the executor of the mapper.
+     *
+     * @return the reader
+     */
+    static XMLElementReader<List<String>> deferredChildren() {
+        return (reader, value) -> {
+            while (reader.nextTag() != END_ELEMENT) {
+                reader.<List<String>>handleAny(ArrayList::new, value::addAll);
+            }
+        };
+    }
+
+    /**
+     * Get a reader which adds the {@code name} attribute of its element, then the text of each child element.
+     *
+     * @return the reader
+     */
+    static XMLElementReader<List<String>> namedItems() {
+        return (reader, value) -> {
+            value.add(reader.getAttributeValue(null, "name"));
+            while (reader.nextTag() != END_ELEMENT) {
+                value.add(reader.getElementText());
+            }
+        };
+    }
+
+    /**
+     * Create a stream reader over a document.
+     *
+     * @param document the document
+     * @return the reader
+     * @throws XMLStreamException if the reader cannot be created
+     */
+    static XMLStreamReader createReader(final String document) throws XMLStreamException {
+        return XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(document));
+    }
+
+    /**
+     * Parse a document into a new list.
+     *
+     * @param mapper the mapper
+     * @param document the document
+     * @param <T> the element type of the list
+     * @return the list
+     * @throws XMLStreamException if the document cannot be parsed
+     */
+    static <T> List<T> parse(final XMLMapper mapper, final String document) throws XMLStreamException {
+        final List<T> value = new ArrayList<>();
+        mapper.parseDocument(value, createReader(document));
+        return value;
+    }
+
+    /**
+     * Parse a document which must be rejected.
+     *
+     * @param mapper the mapper
+     * @param document the document
+     * @return the failure, for the caller to check
+     */
+    static XMLStreamException assertParseFails(final XMLMapper mapper, final String document) {
+        return Assert.assertThrows(XMLStreamException.class, () -> parse(mapper, document));
+    }
+}
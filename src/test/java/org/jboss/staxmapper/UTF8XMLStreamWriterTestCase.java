@@ -0,0 +1,184 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates that {@link UTF8XMLStreamWriter} produces the same output as {@link FormattingXMLStreamWriter}.
+ */
+public class UTF8XMLStreamWriterTestCase {
+
+    private static String format(final XMLElementWriter<Void> content) throws XMLStreamException {
+        final StringWriter writer = new StringWriter();
+        content.writeContent(new FormattingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(writer)), null);
+        return writer.toString();
+    }
+
+    private static String write(final XMLElementWriter<Void> content) throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(out);
+        content.writeContent(streamWriter, null);
+        streamWriter.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testFormatting() throws XMLStreamException {
+        final SimpleWrite1TestCase content = new SimpleWrite1TestCase();
+        Assert.assertEquals(FormattingXMLStreamWriterTestCase.EXPECTED, write((streamWriter, value) -> content.writeContent(streamWriter)));
+    }
+
+    @Test
+    public void testEscaping() throws XMLStreamException {
+        final XMLElementWriter<Void> content = new XMLElementWriter<Void>() {
+            @Override
+            public void writeContent(final XMLExtendedStreamWriter streamWriter, final Void value) throws XMLStreamException {
+                streamWriter.writeStartElement("root");
+                streamWriter.writeNamespace("p", "urn:test");
+                streamWriter.writeAttribute("plain", "<&>\"' café € 😀");
+                streamWriter.writeAttribute("urn:test", "ns", "a");
+                streamWriter.writeAttribute("list", Arrays.asList("x&y", "z"));
+                streamWriter.writeStartElement("urn:test", "child");
+                streamWriter.writeCharacters("<&>\"' café € 😀");
+                streamWriter.writeEndElement();
+                streamWriter.writeEmptyElement("urn:test", "empty");
+                streamWriter.writeAttribute("a", "b");
+                streamWriter.writeStartElement("text");
+                final char[] chars = "x<yé".toCharArray();
+                streamWriter.writeCharacters(chars, 1, 3);
+                streamWriter.writeEndElement();
+                streamWriter.writeProcessingInstruction("target", "data");
+                streamWriter.writeCData("<raw>");
+                streamWriter.writeEndElement();
+            }
+        };
+        Assert.assertEquals(format(content), write(content));
+    }
+
+    @Test
+    public void testLargeDocument() throws XMLStreamException {
+        final XMLElementWriter<Void> content = new XMLElementWriter<Void>() {
+            @Override
+            public void writeContent(final XMLExtendedStreamWriter streamWriter, final Void value) throws XMLStreamException {
+                streamWriter.writeStartDocument("UTF-8", "1.0");
+                streamWriter.writeStartElement("root");
+                streamWriter.writeDefaultNamespace("urn:test");
+                for (int i = 0; i < 2000; i++) {
+                    streamWriter.writeStartElement("element");
+                    streamWriter.writeAttribute("index", Integer.toString(i));
+                    if (i % 3 == 0) {
+                        streamWriter.writeStartElement("nested");
+                        streamWriter.writeCharacters("value é " + i);
+                        streamWriter.writeEndElement();
+                    }
+                    streamWriter.writeEndElement();
+                }
+                streamWriter.writeEndElement();
+                streamWriter.writeEndDocument();
+            }
+        };
+        Assert.assertEquals(format(content), write(content));
+    }
+
+    @Test
+    public void testUnboundNamespace() throws XMLStreamException {
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(new ByteArrayOutputStream());
+        try {
+            streamWriter.writeStartElement("urn:test", "root");
+            Assert.fail("Expected exception");
+        } catch (XMLStreamException e) {
+            Assert.assertEquals("Namespace 'urn:test' is not bound to a prefix", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnpairedSurrogate() throws XMLStreamException {
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(new ByteArrayOutputStream());
+        streamWriter.writeStartElement("root");
+        try {
+            streamWriter.writeCharacters("ab\uD83Dc");
+            Assert.fail("Expected exception");
+        } catch (XMLStreamException e) {
+            Assert.assertEquals("Unpaired surrogate at index 2", e.getMessage());
+        }
+        streamWriter.writeStartElement("child");
+        try {
+            streamWriter.writeAttribute("a", "\uDE00");
+            Assert.fail("Expected exception");
+        } catch (XMLStreamException e) {
+            Assert.assertEquals("Unpaired surrogate at index 0", e.getMessage());
+        }
+        final XMLStreamException e = Assert.assertThrows(XMLStreamException.class, () -> streamWriter.writeStartElement("a\uD800"));
+        Assert.assertEquals("Unpaired surrogate at index 1", e.getMessage());
+    }
+
+    @Test
+    public void testReset() throws XMLStreamException {
+        final XMLElementWriter<Void> content = (streamWriter, value) -> {
+            streamWriter.writeStartElement("caf\u00e9");
+            streamWriter.writeAttribute("na\u00efve", "x");
+            streamWriter.writeEmptyElement("caf\u00e9");
+            streamWriter.writeEndElement();
+            streamWriter.writeEndDocument();
+        };
+        final String expected = format(content);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(out);
+        for (int i = 0; i < 3; i++) {
+            out.reset();
+            streamWriter.reset(out);
+            content.writeContent(streamWriter, null);
+            streamWriter.flush();
+            Assert.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testDeparseDocument() throws XMLStreamException {
+        final XMLElementWriter<String> writer = new XMLElementWriter<String>() {
+            @Override
+            public void writeContent(final XMLExtendedStreamWriter streamWriter, final String value) throws XMLStreamException {
+                streamWriter.writeStartElement("root");
+                streamWriter.writeAttribute("value", value);
+                streamWriter.writeEndElement();
+            }
+        };
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapper.deparseDocument(writer, "x", out);
+        Assert.assertEquals("\n<root value=\"x\"/>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        out.reset();
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(Channels.newChannel(out));
+        mapper.deparseDocument(writer, "y", streamWriter);
+        streamWriter.close();
+        Assert.assertEquals("\n<root value=\"y\"/>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.staxmapper;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates resolution of root elements registered for {@link Versioned} namespaces.
+ */
+public class VersionedRootElementTestCase {
+
+    enum TestNamespace implements Versioned<IntVersion, TestNamespace>, Namespace {
+        VERSION_2_3(2, 3), // Intentionally out-of-order
+        VERSION_1_0(1, 0),
+        VERSION_2_0(2, 0),
+        ;
+        private final IntVersion version;
+
+        TestNamespace(int major, int minor) {
+            this.version = new IntVersion(major, minor);
+        }
+
+        @Override
+        public IntVersion getVersion() {
+            return this.version;
+        }
+
+        @Override
+        public String getUri() {
+            return String.format("urn:foo:%d.%d", this.version.major(), this.version.minor());
+        }
+    }
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private XMLMapper createMapper(final boolean fallback) {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName("urn:test", "root"), TestDocuments.children());
+        mapper.registerRootElement("subsystem", EnumSet.allOf(TestNamespace.class), namespace -> {
+            created.incrementAndGet();
+            return new XMLElementReader<List<String>>() {
+                @Override
+                public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                    value.add(reader.getNamespaceURI() + "=" + namespace.getVersion());
+                    reader.discardRemainder();
+                }
+            };
+        }, fallback);
+        return mapper;
+    }
+
+    private static String document(final String... namespaces) {
+        final StringBuilder document = new StringBuilder("<root xmlns=\"urn:test\">");
+        for (String namespace : namespaces) {
+            document.append("<subsystem xmlns=\"").append(namespace).append("\"/>");
+        }
+        return document.append("</root>").toString();
+    }
+
+    private static List<String> parse(final XMLMapper mapper, final String... namespaces) throws XMLStreamException {
+        return TestDocuments.parse(mapper, document(namespaces));
+    }
+
+    private static void assertUnexpected(final XMLMapper mapper, final String namespace) {
+        final XMLStreamException e = TestDocuments.assertParseFails(mapper, document(namespace));
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unexpected element '{" + namespace + "}subsystem'"));
+    }
+
+    @Test
+    public void testRegisteredVersions() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(false);
+        Assert.assertEquals(Arrays.asList("urn:foo:1.0=1", "urn:foo:2.0=2", "urn:foo:2.3=2.3"), parse(mapper, "urn:foo:1.0", "urn:foo:2.0", "urn:foo:2.3"));
+        assertUnexpected(mapper, "urn:foo:2.1");
+    }
+
+    @Test
+    public void testFallback() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(true);
+        Assert.assertEquals(Arrays.asList("urn:foo:2.1=2", "urn:foo:2.3=2.3", "urn:foo:9.0=2.3", "urn:foo:1.5.1=1", "urn:foo:2.0=2"),
+                parse(mapper, "urn:foo:2.1", "urn:foo:2.3", "urn:foo:9.0", "urn:foo:1.5.1", "urn:foo:2.0"));
+        // Fallback versions share the reader of the version they resolve to
+        Assert.assertEquals(3, created.get());
+        assertUnexpected(mapper, "urn:foo:0.9");
+        assertUnexpected(mapper, "urn:foo:2.x");
+        assertUnexpected(mapper, "urn:bar:2.1");
+    }
+
+    @Test
+    public void testUnregister() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(true);
+        Assert.assertEquals(Arrays.asList("urn:foo:2.5=2.3"), parse(mapper, "urn:foo:2.5"));
+        mapper.unregisterRootElement(new QName("urn:foo:2.3", "subsystem"));
+        Assert.assertEquals(Arrays.asList("urn:foo:2.3=2", "urn:foo:2.5=2"), parse(mapper, "urn:foo:2.3", "urn:foo:2.5"));
+    }
+
+    @Test
+    public void testDuplicate() {
+        final XMLMapper mapper = createMapper(true);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> mapper.registerRootElement("subsystem", EnumSet.of(TestNamespace.VERSION_1_0), namespace -> null, true));
+    }
+}
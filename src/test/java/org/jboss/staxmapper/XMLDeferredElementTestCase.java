@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates {@link XMLExtendedStreamReader#handleAnyLazily()}.
+ */
+public class XMLDeferredElementTestCase {
+
+    private static final String NAMESPACE = "urn:test:lazy";
+
+    private static final String DOCUMENT = "<root xmlns=\"urn:test:lazy\">\n"
+            + "  <child name=\"a\"><value>1</value></child>\n"
+            + "  <child name=\"b\">\n"
+            + "    <value>2</value>\n"
+            + "    <bad/>\n"
+            + "  </child>\n"
+            + "</root>";
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), new XMLElementReader<List<XMLDeferredElement>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<XMLDeferredElement> value) throws XMLStreamException {
+                while (reader.nextTag() != END_ELEMENT) {
+                    value.add(reader.handleAnyLazily());
+                }
+            }
+        });
+        mapper.registerRootElement(new QName(NAMESPACE, "child"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                reads.incrementAndGet();
+                final String name = reader.getAttributeValue(null, "name");
+                while (reader.nextTag() == START_ELEMENT) {
+                    if (! reader.getLocalName().equals("value")) {
+                        throw new XMLStreamException("Unexpected element", reader.getLocation());
+                    }
+                    value.add(name + "=" + reader.getElementText());
+                }
+            }
+        });
+        return mapper;
+    }
+
+    private List<XMLDeferredElement> parse(final String document) throws XMLStreamException {
+        return TestDocuments.parse(createMapper(), document);
+    }
+
+    @Test
+    public void testDeferred() throws XMLStreamException {
+        final List<XMLDeferredElement> elements = parse(DOCUMENT);
+        Assert.assertEquals(2, elements.size());
+        Assert.assertEquals(0, reads.get());
+        final XMLDeferredElement first = elements.get(0);
+        Assert.assertEquals(new QName(NAMESPACE, "child"), first.getName());
+        Assert.assertEquals(2, first.getLocation().getLineNumber());
+        for (int i = 1; i <= 2; i++) {
+            final List<String> value = new ArrayList<>();
+            first.parse(value);
+            Assert.assertEquals(Arrays.asList("a=1"), value);
+            Assert.assertEquals(i, reads.get());
+        }
+    }
+
+    @Test
+    public void testLocation() throws XMLStreamException {
+        final XMLDeferredElement second = parse(DOCUMENT).get(1);
+        Assert.assertEquals(3, second.getLocation().getLineNumber());
+        final XMLStreamException e = Assert.assertThrows(XMLStreamException.class, () -> second.parse(new ArrayList<String>()));
+        Assert.assertEquals(5, e.getLocation().getLineNumber());
+    }
+
+    @Test
+    public void testUnknownElement() {
+        final XMLStreamException e = TestDocuments.assertParseFails(createMapper(), "<root xmlns=\"urn:test:lazy\"><other/></root>");
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unexpected element '{urn:test:lazy}other'"));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates the notifications of an {@link XMLDeparseListener}.
+ */
+public class XMLDeparseListenerTestCase {
+
+    private static final XMLElementWriter<Integer> WRITER = new XMLElementWriter<Integer>() {
+        @Override
+        public void writeContent(final XMLExtendedStreamWriter streamWriter, final Integer count) throws XMLStreamException {
+            streamWriter.writeStartElement("domain");
+            streamWriter.writeDefaultNamespace("urn:domain");
+            streamWriter.writeStartElement("profile");
+            streamWriter.writeAttribute("name", "default");
+            streamWriter.writeStartElement("subsystem");
+            streamWriter.writeDefaultNamespace("urn:subsystem");
+            for (int i = 0; i < count; i++) {
+                streamWriter.writeStartElement("item");
+                streamWriter.writeAttribute("index", Integer.toString(i));
+                streamWriter.writeEmptyElement("value");
+                streamWriter.writeEndElement();
+            }
+            streamWriter.writeEndElement();
+            streamWriter.writeEndElement();
+            streamWriter.writeStartElement("urn:domain", "interfaces");
+            streamWriter.writeEndElement();
+            streamWriter.writeEndElement();
+        }
+    };
+
+    private static List<String> deparse(final boolean utf8) throws XMLStreamException {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        final List<String> notifications = new ArrayList<>();
+        final List<Long> bytes = new ArrayList<>();
+        mapper.setDeparseListener(new XMLDeparseListener() {
+            @Override
+            public void elementWritten(final QName name, final int depth, final long elapsedNanos, final int elements, final int attributes, final long byteCount) {
+                Assert.assertTrue(elapsedNanos >= 0);
+                notifications.add(name + " " + depth + " " + elements + " " + attributes);
+                bytes.add(byteCount);
+            }
+        });
+        if (utf8) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            mapper.deparseDocument(WRITER, 3, out);
+            // The root element accounts for the whole document
+            Assert.assertEquals(out.size(), bytes.get(bytes.size() - 1).longValue());
+            for (Long byteCount : bytes) {
+                Assert.assertTrue(byteCount > 0);
+            }
+        } else {
+            mapper.deparseDocument(WRITER, 3, XMLOutputFactory.newInstance().createXMLStreamWriter(new StringWriter()));
+            for (Long byteCount : bytes) {
+                Assert.assertEquals(-1L, byteCount.longValue());
+            }
+        }
+        return notifications;
+    }
+
+    @Test
+    public void testListener() throws XMLStreamException {
+        final List<String> expected = Arrays.asList(
+                "{urn:subsystem}subsystem 3 7 3",
+                "{urn:domain}profile 2 8 4",
+                "{urn:domain}interfaces 2 1 0",
+                "{urn:domain}domain 1 10 4");
+        Assert.assertEquals(expected, deparse(true));
+        Assert.assertEquals(expected, deparse(false));
+    }
+}
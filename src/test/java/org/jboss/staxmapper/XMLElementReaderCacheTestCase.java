@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates the {@link XMLElementReaderCache} policies.
+ */
+public class XMLElementReaderCacheTestCase {
+
+    private static final QName ROOT = new QName("urn:test:cache", "root");
+    private static final QName CHILD = new QName("urn:test:cache", "child");
+    private static final String DOCUMENT = "<root xmlns=\"urn:test:cache\"><child/><child/><child/></root>";
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private XMLMapper createMapper(final XMLElementReaderCache cache) {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.setRootElementCache(cache);
+        final XMLElementReader<Object> reader = TestDocuments.children();
+        mapper.registerRootElement(ROOT, () -> {
+            created.incrementAndGet();
+            return reader;
+        });
+        mapper.registerRootElement(CHILD, () -> {
+            created.incrementAndGet();
+            return reader;
+        });
+        return mapper;
+    }
+
+    private static void parse(final XMLMapper mapper) throws XMLStreamException {
+        TestDocuments.parse(mapper, DOCUMENT);
+    }
+
+    @Test
+    public void testPerDocument() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(XMLElementReaderCache.perDocument());
+        parse(mapper);
+        parse(mapper);
+        Assert.assertEquals(4, created.get());
+        Assert.assertEquals(4, mapper.getRootElementCache().getMissCount());
+        Assert.assertEquals(4, mapper.getRootElementCache().getHitCount());
+    }
+
+    @Test
+    public void testUnbounded() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(XMLElementReaderCache.unbounded());
+        parse(mapper);
+        parse(mapper);
+        Assert.assertEquals(2, created.get());
+        Assert.assertEquals(2, mapper.getRootElementCache().getMissCount());
+        Assert.assertEquals(6, mapper.getRootElementCache().getHitCount());
+
+        mapper.unregisterRootElement(CHILD);
+        final XMLStreamException e = TestDocuments.assertParseFails(mapper, DOCUMENT);
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unexpected element '{urn:test:cache}child'"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsed() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(XMLElementReaderCache.leastRecentlyUsed(1));
+        parse(mapper);
+        // root, then child evicts root
+        Assert.assertEquals(2, created.get());
+        parse(mapper);
+        Assert.assertEquals(4, created.get());
+        Assert.assertEquals(4, mapper.getRootElementCache().getHitCount());
+    }
+
+    @Test
+    public void testReferences() throws XMLStreamException {
+        for (XMLElementReaderCache cache : new XMLElementReaderCache[] { XMLElementReaderCache.softReferences(), XMLElementReaderCache.weakReferences() }) {
+            final XMLMapper mapper = createMapper(cache);
+            parse(mapper);
+            Assert.assertEquals(4, cache.getHitCount() + cache.getMissCount());
+        }
+    }
+}
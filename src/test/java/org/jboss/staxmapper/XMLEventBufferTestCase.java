@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates recording and replaying an {@link XMLEventBuffer}.
+ */
+public class XMLEventBufferTestCase {
+
+    private static final String NAMESPACE = "urn:test:buffer";
+
+    private static final String DOCUMENT = "<root xmlns=\"urn:test:buffer\" xmlns:o=\"urn:outer\">\n"
+            + "  <parent name=\"p\" o:flag=\"true\">\n"
+            + "    <!-- comment -->\n"
+            + "    <child name=\"a\">text &amp; more</child>\n"
+            + "    <?target data?>\n"
+            + "    <child name=\"b\" xmlns:i=\"urn:inner\"><i:x/><![CDATA[<cdata>]]></child>\n"
+            + "  </parent>\n"
+            + "</root>";
+
+    private static XMLStreamReader createReader() throws XMLStreamException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        final XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(DOCUMENT));
+        reader.nextTag();
+        reader.nextTag();
+        return reader;
+    }
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "parent"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                value.add(reader.getAttributeValue(null, "name") + "@" + reader.getLocation().getLineNumber());
+                while (reader.nextTag() != END_ELEMENT) {
+                    reader.handleAny(value);
+                }
+            }
+        });
+        mapper.registerRootElement(new QName(NAMESPACE, "child"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                final String name = reader.getAttributeValue(null, "name");
+                final int line = reader.getLocation().getLineNumber();
+                reader.setTrimElementText(false);
+                final StringBuilder text = new StringBuilder();
+                while (reader.next() != END_ELEMENT) {
+                    if (reader.getEventType() == START_ELEMENT) {
+                        text.append(reader.getNamespaceContext().getNamespaceURI(reader.getPrefix()));
+                        reader.discardRemainder();
+                    } else {
+                        text.append(reader.getText());
+                    }
+                }
+                value.add(name + "@" + line + "=" + text);
+            }
+        });
+        return mapper;
+    }
+
+    private static void assertSameEvents(final XMLStreamReader expected, final XMLStreamReader actual) throws XMLStreamException {
+        int depth = 0;
+        for (;;) {
+            final int type = expected.getEventType();
+            Assert.assertEquals(type, actual.getEventType());
+            Assert.assertEquals(expected.getLocation().getLineNumber(), actual.getLocation().getLineNumber());
+            Assert.assertEquals(expected.getLocation().getColumnNumber(), actual.getLocation().getColumnNumber());
+            if (type == START_ELEMENT) {
+                depth++;
+                Assert.assertEquals(expected.getName(), actual.getName());
+                Assert.assertEquals(expected.getAttributeCount(), actual.getAttributeCount());
+                for (int i = 0; i < expected.getAttributeCount(); i++) {
+                    Assert.assertEquals(expected.getAttributeName(i), actual.getAttributeName(i));
+                    Assert.assertEquals(expected.getAttributeValue(i), actual.getAttributeValue(i));
+                }
+                Assert.assertEquals(expected.getNamespaceCount(), actual.getNamespaceCount());
+            } else if (type == END_ELEMENT) {
+                Assert.assertEquals(expected.getName(), actual.getName());
+                if (--depth == 0) {
+                    return;
+                }
+            } else if (expected.hasText()) {
+                Assert.assertEquals(expected.getText(), actual.getText());
+                Assert.assertEquals(expected.getText(), new String(actual.getTextCharacters(), actual.getTextStart(), actual.getTextLength()));
+            } else {
+                Assert.assertEquals(expected.getPITarget(), actual.getPITarget());
+                Assert.assertEquals(expected.getPIData(), actual.getPIData());
+            }
+            expected.next();
+            actual.next();
+        }
+    }
+
+    @Test
+    public void testReplay() throws XMLStreamException {
+        for (boolean direct : new boolean[] { false, true }) {
+            final XMLEventBuffer buffer = XMLEventBuffer.record(createReader(), direct);
+            Assert.assertEquals(direct, buffer.isDirect());
+            Assert.assertEquals(new QName(NAMESPACE, "parent"), buffer.getName());
+            Assert.assertEquals(2, buffer.getLocation().getLineNumber());
+            Assert.assertEquals(17, buffer.getEventCount());
+            for (int i = 0; i < 2; i++) {
+                final XMLExtendedStreamReader replay = buffer.replay(createMapper());
+                assertSameEvents(createReader(), replay);
+                Assert.assertEquals("urn:outer", replay.getNamespaceContext().getNamespaceURI("o"));
+            }
+        }
+    }
+
+    @Test
+    public void testParse() throws XMLStreamException {
+        final List<String> expected = Arrays.asList("p@2", "a@4=text & more", "b@6=urn:inner<cdata>");
+        final XMLMapper mapper = createMapper();
+        for (boolean direct : new boolean[] { false, true }) {
+            final XMLEventBuffer buffer = XMLEventBuffer.record(createReader(), direct);
+            for (int i = 0; i < 2; i++) {
+                final List<String> value = new ArrayList<>();
+                buffer.parse(mapper, value);
+                Assert.assertEquals(expected, value);
+            }
+        }
+    }
+}
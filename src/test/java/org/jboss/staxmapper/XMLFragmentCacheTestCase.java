@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates incremental deparsing with an {@link XMLFragmentCache}.
+ */
+public class XMLFragmentCacheTestCase {
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private final XMLElementWriter<String> subsystemWriter = new XMLElementWriter<String>() {
+        @Override
+        public void writeContent(final XMLExtendedStreamWriter streamWriter, final String value) throws XMLStreamException {
+            writes.incrementAndGet();
+            streamWriter.writeStartElement("subsystem");
+            streamWriter.writeDefaultNamespace("urn:subsystem:" + value);
+            streamWriter.writeStartElement("item");
+            streamWriter.writeAttribute("value", value);
+            streamWriter.writeEndElement();
+            streamWriter.writeEmptyElement("empty");
+            streamWriter.writeEndElement();
+        }
+    };
+
+    /**
+     * Writes a profile of subsystems, with the version of each as its value.
+     */
+    private XMLElementWriter<long[]> domainWriter(final XMLFragmentCache cache) {
+        return new XMLElementWriter<long[]>() {
+            @Override
+            public void writeContent(final XMLExtendedStreamWriter streamWriter, final long[] versions) throws XMLStreamException {
+                streamWriter.writeStartDocument();
+                streamWriter.writeStartElement("domain");
+                streamWriter.writeDefaultNamespace("urn:domain");
+                streamWriter.writeStartElement("profile");
+                for (int i = 0; i < versions.length; i++) {
+                    final String value = i + "." + versions[i];
+                    if (cache == null) {
+                        subsystemWriter.writeContent(streamWriter, value);
+                    } else {
+                        cache.write(streamWriter, Integer.valueOf(i), versions[i], subsystemWriter, value);
+                    }
+                }
+                streamWriter.writeEndElement();
+                streamWriter.writeCharacters("text");
+                streamWriter.writeEndElement();
+                streamWriter.writeEndDocument();
+            }
+        };
+    }
+
+    private static String deparse(final XMLElementWriter<long[]> writer, final long... versions) throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLMapper.Factory.create().deparseDocument(writer, versions, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testIncrementalDeparse() throws XMLStreamException {
+        final XMLFragmentCache cache = new XMLFragmentCache();
+        final XMLElementWriter<long[]> writer = domainWriter(cache);
+        final XMLElementWriter<long[]> uncached = domainWriter(null);
+
+        Assert.assertEquals(deparse(uncached, 1, 1, 1), deparse(writer, 1, 1, 1));
+        writes.set(0);
+        Assert.assertEquals(deparse(uncached, 1, 1, 1), deparse(writer, 1, 1, 1));
+        // Only the uncached writer runs
+        Assert.assertEquals(3, writes.getAndSet(0));
+
+        // Only the writer of the changed fragment runs
+        final String expected = deparse(uncached, 1, 2, 1);
+        writes.set(0);
+        Assert.assertEquals(expected, deparse(writer, 1, 2, 1));
+        Assert.assertEquals(1, writes.getAndSet(0));
+        Assert.assertEquals(expected, deparse(writer, 1, 2, 1));
+        Assert.assertEquals(0, writes.get());
+
+        cache.invalidate(Integer.valueOf(0));
+        Assert.assertEquals(expected, deparse(writer, 1, 2, 1));
+        Assert.assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void testLevel() throws XMLStreamException {
+        final XMLFragmentCache cache = new XMLFragmentCache();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(out);
+        streamWriter.writeStartElement("root");
+        cache.write(streamWriter, "key", 1, subsystemWriter, "x");
+        streamWriter.writeStartElement("nested");
+        // Captured at another level, so not replayed
+        cache.write(streamWriter, "key", 1, subsystemWriter, "x");
+        cache.write(streamWriter, "key", 1, subsystemWriter, "x");
+        streamWriter.writeEndElement();
+        streamWriter.writeEndElement();
+        streamWriter.flush();
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+
+        final StringWriter expected = new StringWriter();
+        final XMLExtendedStreamWriter formattingWriter = new FormattingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(expected));
+        formattingWriter.writeStartElement("root");
+        subsystemWriter.writeContent(formattingWriter, "x");
+        formattingWriter.writeStartElement("nested");
+        subsystemWriter.writeContent(formattingWriter, "x");
+        subsystemWriter.writeContent(formattingWriter, "x");
+        formattingWriter.writeEndElement();
+        formattingWriter.writeEndElement();
+        formattingWriter.close();
+        Assert.assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOtherWriter() throws XMLStreamException {
+        final XMLFragmentCache cache = new XMLFragmentCache();
+        final XMLExtendedStreamWriter streamWriter = new FormattingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(new StringWriter()));
+        streamWriter.writeStartElement("root");
+        cache.write(streamWriter, "key", 1, subsystemWriter, "x");
+        cache.write(streamWriter, "key", 1, subsystemWriter, "x");
+        Assert.assertEquals(2, writes.get());
+    }
+
+    @Test
+    public void testFailedWriter() throws XMLStreamException {
+        final XMLFragmentCache cache = new XMLFragmentCache();
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(new ByteArrayOutputStream());
+        streamWriter.writeStartElement("root");
+        final XMLStreamException failure = new XMLStreamException("Writer failed");
+        try {
+            cache.write(streamWriter, "key", 1, new XMLElementWriter<String>() {
+                @Override
+                public void writeContent(final XMLExtendedStreamWriter streamWriter, final String value) throws XMLStreamException {
+                    streamWriter.writeStartElement("subsystem");
+                    throw failure;
+                }
+            }, "x");
+            Assert.fail("Expected exception");
+        } catch (XMLStreamException e) {
+            Assert.assertSame(failure, e);
+        }
+        // Nothing was cached for the failed writer
+        cache.write(streamWriter, "key", 1, subsystemWriter, "x");
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(1, writes.get());
+    }
+
+    private static String writeParent(final XMLFragmentCache cache, final XMLElementWriter<String> content) throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final UTF8XMLStreamWriter streamWriter = new UTF8XMLStreamWriter(out);
+        streamWriter.writeStartElement("root");
+        streamWriter.writeStartElement("parent");
+        if (cache == null) {
+            content.writeContent(streamWriter, "x");
+        } else {
+            cache.write(streamWriter, content, 1, content, "x");
+        }
+        streamWriter.writeEndElement();
+        streamWriter.writeEndElement();
+        streamWriter.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEmptyFragment() throws XMLStreamException {
+        final XMLFragmentCache cache = new XMLFragmentCache();
+        final XMLElementWriter<String> empty = (streamWriter, value) -> { };
+        Assert.assertTrue(writeParent(null, empty).contains("<parent/>"));
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(writeParent(null, empty), writeParent(cache, empty));
+        }
+        Assert.assertEquals(1, cache.getHitCount());
+
+        // Writes to the enclosing element are not captured as a fragment
+        final XMLElementWriter<String> attribute = (streamWriter, value) -> streamWriter.writeAttribute("value", value);
+        Assert.assertTrue(writeParent(null, attribute).contains("<parent value=\"x\"/>"));
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(writeParent(null, attribute), writeParent(cache, attribute));
+        }
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates dispatching of nested elements and attributes to their registered readers.
+ */
+public class XMLMapperDispatchTestCase {
+
+    private static final String NS1 = "urn:test:one";
+    private static final String NS2 = "urn:test:two";
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        final XMLElementReader<List<String>> reader = new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                value.add(reader.getName().toString());
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    reader.handleAttribute(value, i);
+                }
+                while (reader.nextTag() != END_ELEMENT) {
+                    reader.handleAny(value);
+                }
+            }
+        };
+        mapper.registerRootElement(new QName(NS1, "root"), reader);
+        mapper.registerRootElement(new QName(NS2, "root"), reader);
+        mapper.registerRootElement(new QName("", "plain"), reader);
+        mapper.registerRootAttribute(new QName(NS2, "attr"), new XMLAttributeReader<List<String>>() {
+            @Override
+            public void readAttribute(final XMLStreamReader reader, final int index, final List<String> value) throws XMLStreamException {
+                value.add("@" + reader.getAttributeValue(index));
+            }
+        });
+        return mapper;
+    }
+
+    @Test
+    public void testDispatch() throws XMLStreamException {
+        final List<String> result = TestDocuments.parse(createMapper(), "<root xmlns=\"urn:test:one\" xmlns:b=\"urn:test:two\" b:attr=\"x\"><b:root/><root><plain xmlns=\"\"/></root></root>");
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals("{urn:test:one}root", result.get(0));
+        Assert.assertEquals("@x", result.get(1));
+        Assert.assertEquals("{urn:test:two}root", result.get(2));
+        Assert.assertEquals("{urn:test:one}root", result.get(3));
+        Assert.assertEquals("plain", result.get(4));
+    }
+
+    @Test
+    public void testUnknownElement() {
+        final XMLStreamException e = TestDocuments.assertParseFails(createMapper(), "<root xmlns=\"urn:test:one\"><other/></root>");
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unexpected element '{urn:test:one}other'"));
+    }
+
+    @Test
+    public void testUnknownAttribute() {
+        final XMLStreamException e = TestDocuments.assertParseFails(createMapper(), "<root xmlns=\"urn:test:one\" attr=\"x\"/>");
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unexpected attribute 'attr'"));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates that a {@link XMLMapperSession} parses and writes documents as the mapper does while reusing its state.
+ */
+public class XMLMapperSessionTestCase {
+
+    private static final String NAMESPACE = "urn:test";
+
+    private static final XMLElementWriter<List<String>> WRITER = new XMLElementWriter<List<String>>() {
+        @Override
+        public void writeContent(final XMLExtendedStreamWriter writer, final List<String> value) throws XMLStreamException {
+            writer.writeStartDocument();
+            writer.setDefaultNamespace(NAMESPACE);
+            writer.writeStartElement(NAMESPACE, "root");
+            writer.writeDefaultNamespace(NAMESPACE);
+            for (String item : value) {
+                writer.writeStartElement(NAMESPACE, "item");
+                writer.writeAttribute("value", item);
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+        }
+    };
+
+    private static XMLMapper createMapper(final XMLMapperSession[] session) {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                while (reader.nextTag() != END_ELEMENT) {
+                    final String item = reader.getAttributeValue(null, "value");
+                    reader.discardRemainder();
+                    if (item.startsWith("<")) {
+                        // Parse an embedded document through the same session
+                        session[0].parseDocument(value, item.getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        value.add(item);
+                    }
+                }
+            }
+        });
+        return mapper;
+    }
+
+    private static String document(final String... items) {
+        final StringBuilder builder = new StringBuilder("<root xmlns=\"urn:test\">");
+        for (String item : items) {
+            builder.append("<item value=\"").append(item.replace("<", "&lt;").replace("\"", "&quot;")).append("\"/>");
+        }
+        return builder.append("</root>").toString();
+    }
+
+    @Test
+    public void testParse() throws XMLStreamException {
+        final XMLMapperSession[] session = new XMLMapperSession[1];
+        final XMLMapper mapper = createMapper(session);
+        try (XMLMapperSession s = mapper.openSession()) {
+            session[0] = s;
+            for (int i = 0; i < 3; i++) {
+                final List<String> result = new ArrayList<>();
+                s.parseDocument(result, document("a" + i, "b" + i).getBytes(StandardCharsets.UTF_8));
+                Assert.assertEquals(Arrays.asList("a" + i, "b" + i), result);
+            }
+            final List<String> result = new ArrayList<>();
+            s.parseDocument(result, document("a", document("b", "c"), "d").getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), result);
+        }
+    }
+
+    @Test
+    public void testParseAfterFailure() throws XMLStreamException {
+        final XMLMapperSession[] session = new XMLMapperSession[1];
+        try (XMLMapperSession s = createMapper(session).openSession()) {
+            session[0] = s;
+            final XMLStreamException e = Assert.assertThrows(XMLStreamException.class,
+                    () -> s.parseDocument(new ArrayList<String>(), "<other xmlns=\"urn:test\"/>".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unexpected element '{urn:test}other'"));
+            final List<String> result = new ArrayList<>();
+            s.parseDocument(result, document("a").getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(Arrays.asList("a"), result);
+        }
+    }
+
+    @Test
+    public void testDeparse() throws XMLStreamException {
+        final XMLMapper mapper = createMapper(new XMLMapperSession[1]);
+        final List<String> value = Arrays.asList("a", "b");
+        final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+        mapper.deparseDocument(WRITER, value, expectedBytes);
+        final StringWriter expectedChars = new StringWriter();
+        mapper.deparseDocument(WRITER, value, XMLOutputFactory.newInstance().createXMLStreamWriter(expectedChars));
+        try (XMLMapperSession session = mapper.openSession()) {
+            for (int i = 0; i < 3; i++) {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                session.deparseDocument(WRITER, value, bytes);
+                Assert.assertEquals(expectedBytes.toString(), bytes.toString());
+                final StringWriter chars = new StringWriter();
+                session.deparseDocument(WRITER, value, XMLOutputFactory.newInstance().createXMLStreamWriter(chars));
+                Assert.assertEquals(expectedChars.toString(), chars.toString());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() throws XMLStreamException {
+        final XMLMapperSession session = createMapper(new XMLMapperSession[1]).openSession();
+        session.close();
+        session.parseDocument(new ArrayList<String>(), document("a").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDelegatingSession() throws XMLStreamException {
+        final XMLMapperSession[] session = new XMLMapperSession[1];
+        final XMLMapper mapper = createMapper(session);
+        try (XMLMapperSession s = new DelegatingXMLMapperSession(mapper)) {
+            session[0] = s;
+            final List<String> result = new ArrayList<>();
+            s.parseDocument(result, document("a", document("b"), "c").getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(Arrays.asList("a", "b", "c"), result);
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            mapper.deparseDocument(WRITER, result, expected);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            s.deparseDocument(WRITER, result, bytes);
+            Assert.assertEquals(expected.toString(), bytes.toString());
+        }
+    }
+}
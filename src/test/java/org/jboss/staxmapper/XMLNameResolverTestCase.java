@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates {@link XMLNameResolver}.
+ */
+public class XMLNameResolverTestCase {
+
+    private static final Namespace NAMESPACE = () -> "urn:test:names";
+
+    enum Element {
+        UNKNOWN(null),
+        ROOT("root"),
+        SERVER("server"),
+        ;
+
+        final String localName;
+
+        Element(final String localName) {
+            this.localName = localName;
+        }
+    }
+
+    enum Attribute {
+        UNKNOWN(null),
+        NAME("name"),
+        PORT("port"),
+        ENABLED("enabled"),
+        ;
+
+        final String localName;
+
+        Attribute(final String localName) {
+            this.localName = localName;
+        }
+    }
+
+    private static final XMLNameResolver<Element> ELEMENTS = XMLNameResolver.of(NAMESPACE, Element.class, e -> e.localName);
+    private static final XMLNameResolver<Attribute> ATTRIBUTES = XMLNameResolver.of(NAMESPACE, Attribute.class, a -> a.localName);
+    private static final long REQUIRED = ATTRIBUTES.mask(Attribute.NAME, Attribute.PORT);
+
+    private static XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE.getUri(), "root"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                Assert.assertEquals(Element.ROOT, ELEMENTS.getElement(reader));
+                while (reader.nextTag() != END_ELEMENT) {
+                    Assert.assertEquals(Element.SERVER, ELEMENTS.getElement(reader));
+                    final StringBuilder builder = new StringBuilder();
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        builder.append(ATTRIBUTES.getAttribute(reader, i)).append('=').append(reader.getAttributeValue(i)).append(' ');
+                    }
+                    ATTRIBUTES.requireAttributes(reader, REQUIRED);
+                    builder.append(ATTRIBUTES.isSeen(reader, Attribute.ENABLED));
+                    value.add(builder.toString());
+                    reader.discardRemainder();
+                }
+            }
+        });
+        return mapper;
+    }
+
+    private static List<String> parse(final String servers) throws XMLStreamException {
+        return TestDocuments.parse(createMapper(), "<root xmlns=\"urn:test:names\">" + servers + "</root>");
+    }
+
+    private static void assertFailure(final String servers, final String message) {
+        final XMLStreamException e = Assert.assertThrows(XMLStreamException.class, () -> parse(servers));
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+    }
+
+    @Test
+    public void testResolve() {
+        Assert.assertEquals(Attribute.PORT, ATTRIBUTES.resolve("port"));
+        Assert.assertEquals(Attribute.PORT, ATTRIBUTES.resolve(new String("port")));
+        Assert.assertNull(ATTRIBUTES.resolve("UNKNOWN"));
+        Assert.assertNull(ATTRIBUTES.resolve("other"));
+    }
+
+    @Test
+    public void testAttributes() throws XMLStreamException {
+        final List<String> expected = new ArrayList<>();
+        expected.add("NAME=a PORT=1 ENABLED=true true");
+        expected.add("PORT=2 NAME=b false");
+        Assert.assertEquals(expected, parse("<server name=\"a\" port=\"1\" enabled=\"true\"/><server port=\"2\" name=\"b\"/>"));
+    }
+
+    @Test
+    public void testFailures() {
+        assertFailure("<server name=\"a\"/>", "Missing required attribute(s): port");
+        assertFailure("<server/>", "Missing required attribute(s): name, port");
+        assertFailure("<server name=\"a\" port=\"1\" other=\"x\"/>", "Unexpected attribute 'other'");
+        assertFailure("<server xmlns:o=\"urn:other\" name=\"a\" o:port=\"1\"/>", "Unexpected attribute");
+        assertFailure("<other/>", "Unexpected element");
+    }
+
+    @Test
+    public void testCollidingNames() {
+        // "Aa" and "BB" have the same hash code, so they collide at any table size and must be probed
+        final String[] names = { null, "Aa", "BB", "AaBB" };
+        final XMLNameResolver<Attribute> resolver = XMLNameResolver.of(NAMESPACE, Attribute.class, a -> names[a.ordinal()]);
+        Assert.assertEquals(Attribute.NAME, resolver.resolve("Aa"));
+        Assert.assertEquals(Attribute.PORT, resolver.resolve("BB"));
+        Assert.assertEquals(Attribute.ENABLED, resolver.resolve("AaBB"));
+        Assert.assertNull(resolver.resolve("BBAa"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateNames() {
+        XMLNameResolver.of(NAMESPACE, Attribute.class, a -> "name");
+    }
+}
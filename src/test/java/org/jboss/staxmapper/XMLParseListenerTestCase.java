@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates the notifications of an {@link XMLParseListener}.
+ */
+public class XMLParseListenerTestCase {
+
+    private static final String NS = "urn:test";
+
+    @Test
+    public void testListener() throws XMLStreamException {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        final XMLElementReader<List<String>> reader = new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    reader.handleAttribute(value, i);
+                }
+                while (reader.nextTag() != END_ELEMENT) {
+                    if (reader.getLocalName().equals("skip")) {
+                        reader.discardRemainder();
+                    } else {
+                        reader.handleAny(value);
+                    }
+                }
+            }
+        };
+        mapper.registerRootElement(new QName(NS, "root"), reader);
+        mapper.registerRootElement(new QName(NS, "child"), reader);
+        mapper.registerRootAttribute(new QName(NS, "attr"), new XMLAttributeReader<List<String>>() {
+            @Override
+            public void readAttribute(final XMLStreamReader reader, final int index, final List<String> value) {
+                value.add(reader.getAttributeValue(index));
+            }
+        });
+        final List<String> notifications = new ArrayList<>();
+        mapper.setParseListener(new XMLParseListener() {
+            @Override
+            public void elementRead(final QName name, final int depth, final long elapsedNanos, final long events) {
+                Assert.assertTrue(elapsedNanos >= 0);
+                notifications.add(name.getLocalPart() + " " + depth + " " + events);
+            }
+
+            @Override
+            public void attributeRead(final QName name, final int depth, final long elapsedNanos) {
+                Assert.assertTrue(elapsedNanos >= 0);
+                notifications.add("@" + name.getLocalPart() + " " + depth);
+            }
+        });
+        final String document = "<root xmlns=\"urn:test\" xmlns:t=\"urn:test\">" +
+                "<child t:attr=\"x\"/>" +
+                "<child><child/><skip><a/><b/></skip></child>" +
+                "</root>";
+        final List<String> result = TestDocuments.parse(mapper, document);
+        Assert.assertEquals(Arrays.asList("x"), result);
+        Assert.assertEquals(Arrays.asList(
+                "@attr 2",
+                "child 2 1",
+                "child 3 1",
+                "child 2 9",
+                "root 1 13"), notifications);
+
+        // Removing the listener stops the notifications
+        mapper.setParseListener(null);
+        notifications.clear();
+        TestDocuments.parse(mapper, document);
+        Assert.assertTrue(notifications.isEmpty());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates incremental parsing with an {@link XMLSnapshotter}.
+ */
+public class XMLSnapshotterTestCase {
+
+    private static final String NS = "urn:test";
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private XMLMapper createMapper() {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NS, "root"), TestDocuments.children());
+        final XMLElementReader<List<String>> items = TestDocuments.namedItems();
+        mapper.registerRootElement(new QName(NS, "subsystem"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                reads.incrementAndGet();
+                items.readElement(reader, value);
+            }
+        });
+        mapper.registerSnapshotter(new QName(NS, "subsystem"), new XMLSnapshotter<List<String>>() {
+            @Override
+            public Object mark(final List<String> value) {
+                return value.size();
+            }
+
+            @Override
+            public Consumer<? super List<String>> capture(final List<String> value, final Object mark) {
+                final List<String> added = new ArrayList<>(value.subList((Integer) mark, value.size()));
+                return v -> v.addAll(added);
+            }
+        });
+        return mapper;
+    }
+
+    private static String document(final String first, final String second) {
+        return "<root xmlns=\"urn:test\">\n" +
+                "  <subsystem name=\"a\"><item>" + first + "</item></subsystem>\n" +
+                "  <subsystem name=\"b\"><item>" + second + "</item></subsystem>\n" +
+                "</root>";
+    }
+
+    private static List<String> parse(final XMLMapper mapper, final String document) throws XMLStreamException {
+        return TestDocuments.parse(mapper, document);
+    }
+
+    @Test
+    public void testIncrementalParse() throws XMLStreamException {
+        final XMLMapper mapper = createMapper();
+        Assert.assertEquals(Arrays.asList("a", "x", "b", "y"), parse(mapper, document("x", "y")));
+        Assert.assertEquals(2, reads.getAndSet(0));
+
+        // Unchanged subtrees are not read again
+        Assert.assertEquals(Arrays.asList("a", "x", "b", "y"), parse(mapper, document("x", "y")));
+        Assert.assertEquals(0, reads.getAndSet(0));
+
+        // Only the changed subtree is read again
+        Assert.assertEquals(Arrays.asList("a", "z", "b", "y"), parse(mapper, document("z", "y")));
+        Assert.assertEquals(1, reads.getAndSet(0));
+
+        // The snapshots of earlier parses are kept as well
+        Assert.assertEquals(Arrays.asList("a", "x", "b", "y"), parse(mapper, document("x", "y")));
+        Assert.assertEquals(0, reads.getAndSet(0));
+
+        mapper.unregisterSnapshotter(new QName(NS, "subsystem"));
+        Assert.assertEquals(Arrays.asList("a", "x", "b", "y"), parse(mapper, document("x", "y")));
+        Assert.assertEquals(2, reads.getAndSet(0));
+    }
+
+    @Test
+    public void testFailedParse() throws XMLStreamException {
+        final XMLMapper mapper = createMapper();
+        parse(mapper, document("x", "y"));
+        final XMLStreamException e = TestDocuments.assertParseFails(mapper, document("x", "y").replace("<item>y</item>", "<item><nested/></item>"));
+        Assert.assertEquals(3, e.getLocation().getLineNumber());
+        // The snapshots of the failed parse are discarded
+        reads.set(0);
+        parse(mapper, document("x", "y"));
+        Assert.assertEquals(0, reads.get());
+    }
+
+    @Test
+    public void testSeveralDocuments() throws XMLStreamException {
+        final XMLMapper mapper = createMapper();
+        final String first = document("x", "y");
+        final String second = document("x", "y").replace("\"a\"", "\"c\"").replace("\"b\"", "\"d\"");
+        parse(mapper, first);
+        parse(mapper, second);
+        Assert.assertEquals(4, reads.getAndSet(0));
+        // Parsing another document does not evict the snapshots of the first
+        Assert.assertEquals(Arrays.asList("a", "x", "b", "y"), parse(mapper, first));
+        Assert.assertEquals(Arrays.asList("c", "x", "d", "y"), parse(mapper, second));
+        Assert.assertEquals(0, reads.get());
+    }
+
+    @Test
+    public void testEviction() {
+        final SnapshotCache.Store store = new SnapshotCache.Store();
+        final QName name = new QName(NS, "subsystem");
+        final SnapshotCache oldest = new SnapshotCache(store);
+        oldest.put(name, new byte[] { -1 }, value -> { });
+        oldest.commit();
+        for (int i = 0; i < SnapshotCache.Store.MAX_SNAPSHOTS; i++) {
+            final SnapshotCache snapshots = new SnapshotCache(store);
+            snapshots.put(name, new byte[] { (byte) i, (byte) (i >> 8) }, value -> { });
+            snapshots.commit();
+        }
+        Assert.assertEquals(SnapshotCache.Store.MAX_SNAPSHOTS, store.size());
+        Assert.assertNull(new SnapshotCache(store).get(name, new byte[] { -1 }));
+        Assert.assertNotNull(new SnapshotCache(store).get(name, new byte[] { 0, 0 }));
+    }
+}
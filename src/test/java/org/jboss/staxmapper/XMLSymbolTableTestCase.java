@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2023 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.staxmapper;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates {@link XMLSymbolTable} and the name IDs of {@link XMLExtendedStreamReader}.
+ */
+public class XMLSymbolTableTestCase {
+
+    private static final String NAMESPACE = "urn:test:symbols";
+
+    private static final int ITEM = 0;
+    private static final int NAME = 1;
+
+    enum Attribute {
+        NAME("name"),
+        VALUE("value"),
+        UNUSED(null),
+        ;
+        private final String localName;
+
+        Attribute(final String localName) {
+            this.localName = localName;
+        }
+    }
+
+    @Test
+    public void testRegister() {
+        final XMLSymbolTable table = XMLMapper.Factory.create().getSymbolTable();
+        Assert.assertEquals(0, table.size());
+        Assert.assertEquals(XMLSymbolTable.UNKNOWN, table.getId("a"));
+        Assert.assertEquals(XMLSymbolTable.UNKNOWN, table.getId(null));
+        final String[] names = new String[100];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "name" + i;
+        }
+        final int[] ids = table.register(names);
+        for (int i = 0; i < names.length; i++) {
+            Assert.assertEquals(i, ids[i]);
+        }
+        // Registered names keep their IDs, and a name repeated in a batch gets a single ID
+        Assert.assertArrayEquals(new int[] { 5, 100, 100 }, table.register(new String("name5"), "other", "other"));
+        Assert.assertEquals(101, table.size());
+        for (int i = 0; i < names.length; i++) {
+            Assert.assertEquals(i, table.getId(new StringBuilder("name").append(i).toString()));
+            Assert.assertEquals("name" + i, table.getName(i));
+        }
+    }
+
+    @Test
+    public void testRegisterIds() {
+        final XMLSymbolTable table = XMLMapper.Factory.create().getSymbolTable();
+        table.register("b", 3);
+        table.register("a", 3);
+        table.register("b", 3);
+        Assert.assertEquals(4, table.size());
+        Assert.assertEquals(3, table.getId("a"));
+        Assert.assertEquals("b", table.getName(3));
+        Assert.assertNull(table.getName(0));
+        try {
+            table.register("a", 1);
+            Assert.fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Name a already registered with ID 3", e.getMessage());
+        }
+        try {
+            table.register("c", XMLSymbolTable.UNKNOWN);
+            Assert.fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(XMLSymbolTable.UNKNOWN, table.getId("c"));
+        }
+        // Auto-assigned IDs follow the highest ID
+        Assert.assertArrayEquals(new int[] { 4 }, table.register("c"));
+    }
+
+    @Test
+    public void testRegisterEnum() {
+        final XMLSymbolTable table = XMLMapper.Factory.create().getSymbolTable();
+        table.register(Attribute.class, attribute -> attribute.localName);
+        Assert.assertEquals(Attribute.NAME.ordinal(), table.getId("name"));
+        Assert.assertEquals(Attribute.VALUE.ordinal(), table.getId("value"));
+        Assert.assertEquals(2, table.size());
+        // Registering again is harmless
+        table.register(Attribute.class, attribute -> attribute.localName);
+        Assert.assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testReaderIds() throws XMLStreamException {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        final XMLSymbolTable table = mapper.getSymbolTable();
+        table.register("item", ITEM);
+        table.register("name", NAME);
+        mapper.registerRootElement(new QName(NAMESPACE, "root"), new XMLElementReader<List<String>>() {
+            @Override
+            public void readElement(final XMLExtendedStreamReader reader, final List<String> value) throws XMLStreamException {
+                Assert.assertEquals(XMLSymbolTable.UNKNOWN, reader.getLocalNameId());
+                while (reader.nextTag() != END_ELEMENT) {
+                    switch (reader.getLocalNameId()) {
+                        case ITEM:
+                            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                                switch (reader.getAttributeLocalNameId(i)) {
+                                    case NAME:
+                                        value.add(reader.getAttributeValue(i));
+                                        break;
+                                    default:
+                                        value.add("unknown:" + reader.getAttributeLocalName(i));
+                                }
+                            }
+                            break;
+                        default:
+                            value.add("unknown:" + reader.getLocalName());
+                    }
+                    reader.discardRemainder();
+                }
+            }
+        });
+        final String document = "<root xmlns=\"urn:test:symbols\"><item name=\"a\" other=\"b\"/><thing/></root>";
+        final List<String> value = TestDocuments.parse(mapper, document);
+        final List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("unknown:other");
+        expected.add("unknown:thing");
+        Assert.assertEquals(expected, value);
+    }
+}